@@ -0,0 +1,98 @@
+#!/usr/bin/env bash
+# Time from launching the JVM to the first successful GET /api/airports/{icao}, for the plain jar and for the
+# fast-start build (Spring AOT, class data sharing archive, lazy initialization).
+#
+#   mvn -Pfast-start package -DskipTests
+#   scripts/startup-benchmark.sh [runs]
+#
+# Spring's SQL init creates the airport table and inserts one row on every start, so the lookup answers 200 without
+# a separate load step; the first lookup also loads the in-memory index from the database, as on a new instance.
+# The table is created by the script and not by deferring the init until after Hibernate, since that ordering is
+# fixed at build time in the AOT processed jar.
+# Prints one line per run and the min and median per mode. PORT (default 18090) and JAVA can be overridden.
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18090}
+JAVA=${JAVA:-java}
+ICAO=KJFK
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAR=airportservice-0.0.1-SNAPSHOT.jar
+
+if [[ ! -f "$ROOT/target/$JAR" || ! -f "$ROOT/target/fast-start/application.jsa" ]]; then
+    echo "Build first: mvn -Pfast-start package -DskipTests" >&2
+    exit 1
+fi
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+cat > "$WORK/seed.sql" <<SQL
+CREATE TABLE IF NOT EXISTS airport (icao VARCHAR(255) NOT NULL PRIMARY KEY, iata VARCHAR(255), name VARCHAR(255),
+    city VARCHAR(255), state VARCHAR(255), country VARCHAR(255), elevation INTEGER, lat FLOAT(53), lon FLOAT(53),
+    tz VARCHAR(255));
+INSERT INTO airport (icao, iata, name, city, state, country, elevation, lat, lon, tz)
+VALUES ('$ICAO', 'JFK', 'John F Kennedy International Airport', 'New York', 'New-York', 'US', 13, 40.6398, -73.7789,
+        'America/New_York');
+SQL
+APP_ARGS=(--server.port="$PORT" --spring.sql.init.mode=always --spring.sql.init.data-locations="file:$WORK/seed.sql")
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Starts the app from the given directory with the given JVM options and prints the milliseconds until the lookup
+# returned 200, then Spring's own "Started ... in" time. Fails when the app exits before answering.
+run_once() {
+    local dir=$1
+    shift
+    local log="$WORK/app.log"
+    local start
+    start=$(now_ms)
+    (cd "$dir" && exec "$JAVA" "$@" -jar "$JAR" "${APP_ARGS[@]}") > "$log" 2>&1 &
+    local pid=$!
+    local elapsed=""
+    while kill -0 "$pid" 2> /dev/null; do
+        if [[ $(curl -s -o /dev/null -w '%{http_code}' --max-time 1 "http://localhost:$PORT/api/airports/$ICAO" || true) == 200 ]]; then
+            elapsed=$(( $(now_ms) - start ))
+            break
+        fi
+        sleep 0.02
+    done
+    kill "$pid" 2> /dev/null || true
+    wait "$pid" 2> /dev/null || true
+    if [[ -z "$elapsed" ]]; then
+        echo "The app exited before answering, last lines of its log:" >&2
+        tail -20 "$log" >&2
+        return 1
+    fi
+    local started
+    started=$(grep -o 'Started [A-Za-z]* in [0-9.]* seconds' "$log" | grep -o '[0-9.]* seconds' || echo "?")
+    echo "$elapsed $started"
+}
+
+summary() {
+    local mode=$1
+    shift
+    local sorted
+    sorted=$(printf '%s\n' "$@" | sort -n)
+    local min median
+    min=$(echo "$sorted" | head -1)
+    median=$(echo "$sorted" | sed -n "$(( ($# + 1) / 2 ))p")
+    printf '%-10s min %6d ms   median %6d ms   (%d runs)\n' "$mode" "$min" "$median" "$#"
+}
+
+declare -a plain fast
+for ((i = 1; i <= RUNS; i++)); do
+    result=$(run_once "$ROOT/target")
+    read -r ms started <<< "$result"
+    echo "run $i jar         first $ICAO lookup after ${ms} ms, context started in $started"
+    plain+=("$ms")
+    result=$(run_once "$ROOT/target/fast-start" -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+            -Dspring.profiles.active=fast-start)
+    read -r ms started <<< "$result"
+    echo "run $i fast-start  first $ICAO lookup after ${ms} ms, context started in $started"
+    fast+=("$ms")
+done
+echo
+summary jar "${plain[@]}"
+summary fast-start "${fast[@]}"
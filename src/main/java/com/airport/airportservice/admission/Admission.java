@@ -0,0 +1,13 @@
+package com.airport.airportservice.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a controller method as subject to admission control, handlers without it are never limited
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Admission {
+    EndpointClass value();
+}
@@ -0,0 +1,127 @@
+package com.airport.airportservice.admission;
+
+import com.airport.airportservice.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Admission control for handlers annotated with @Admission. Each endpoint class has its own semaphore, so scans can
+// use at most scan.max-concurrent Tomcat threads and db connections while lookups keep a separate pool.
+// Scans are also rate limited per client. Rejections never wait, they fail fast with 429 or 503.
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".permit";
+    private static final int MAX_TRACKED_CLIENTS = 10_000;
+
+    private final AdmissionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<EndpointClass, Semaphore> pools = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Map<String, TokenBucket>> buckets = new EnumMap<>(EndpointClass.class);
+
+    @Autowired
+    public AdmissionInterceptor(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            Semaphore pool = new Semaphore(limits(endpointClass).getMaxConcurrent());
+            pools.put(endpointClass, pool);
+            buckets.put(endpointClass, new LinkedHashMap<>(16, 0.75f, true) {
+                // least recently seen client goes first, whatever it had used of its budget is forgotten
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                    return size() > MAX_TRACKED_CLIENTS;
+                }
+            });
+            meterRegistry.gauge("airport.admission.inflight", Tags.of("class", tag(endpointClass)),
+                    pool, p -> limits(endpointClass).getMaxConcurrent() - p.availablePermits());
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!properties.isEnabled() || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        Admission admission = handlerMethod.getMethodAnnotation(Admission.class);
+        if (admission == null) {
+            return true;
+        }
+        EndpointClass endpointClass = admission.value();
+        AdmissionProperties.Limits limits = limits(endpointClass);
+
+        if (limits.getClientRatePerSecond() > 0) {
+            long now = System.nanoTime();
+            TokenBucket bucket = bucketFor(endpointClass, clientId(request), limits, now);
+            long waitNanos = bucket.tryConsume(now);
+            if (waitNanos > 0) {
+                reject(endpointClass, "rate");
+                throw new AdmissionRejectedException(HttpStatus.TOO_MANY_REQUESTS,
+                        Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos)),
+                        "Too many requests for this endpoint, limit is " + limits.getClientRatePerSecond() + " per second.");
+            }
+        }
+
+        if (!pools.get(endpointClass).tryAcquire()) {
+            reject(endpointClass, "concurrency");
+            throw new AdmissionRejectedException(HttpStatus.SERVICE_UNAVAILABLE, 1,
+                    "Server is busy serving other requests of this kind, please retry shortly.");
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, endpointClass);
+        meterRegistry.counter("airport.admission.admitted", "class", tag(endpointClass)).increment();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object endpointClass = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (endpointClass != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            pools.get((EndpointClass) endpointClass).release();
+        }
+    }
+
+    private TokenBucket bucketFor(EndpointClass endpointClass, String client, AdmissionProperties.Limits limits, long now) {
+        // access ordered, so even a lookup reorders the map and needs the lock
+        Map<String, TokenBucket> clientBuckets = buckets.get(endpointClass);
+        synchronized (clientBuckets) {
+            return clientBuckets.computeIfAbsent(client,
+                    c -> new TokenBucket(limits.getClientRatePerSecond(), limits.getClientBurst(), now));
+        }
+    }
+
+    // Socket address of the client. X-Forwarded-For is client controlled and is never read here, behind a proxy
+    // server.forward-headers-strategy rewrites the remote address from it for trusted proxies only.
+    private static String clientId(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+
+    private AdmissionProperties.Limits limits(EndpointClass endpointClass) {
+        return switch (endpointClass) {
+            case SCAN -> properties.getScan();
+            case LOOKUP -> properties.getLookup();
+            case SEARCH -> properties.getSearch();
+        };
+    }
+
+    private void reject(EndpointClass endpointClass, String reason) {
+        meterRegistry.counter("airport.admission.rejected", "class", tag(endpointClass), "reason", reason).increment();
+    }
+
+    private static String tag(EndpointClass endpointClass) {
+        return endpointClass.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,32 @@
+package com.airport.airportservice.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "airport.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+    private Limits scan = new Limits(4, 2, 5);
+    private Limits lookup = new Limits(64, 0, 0);
+    private Limits search = new Limits(16, 10, 20);
+
+    @Data
+    public static class Limits {
+        // Requests of this class running at the same time, extra ones get 503 straight away
+        private int maxConcurrent;
+        // Per client token bucket, 0 turns rate limiting off for the class
+        private double clientRatePerSecond;
+        private int clientBurst;
+
+        public Limits() {
+        }
+
+        public Limits(int maxConcurrent, double clientRatePerSecond, int clientBurst) {
+            this.maxConcurrent = maxConcurrent;
+            this.clientRatePerSecond = clientRatePerSecond;
+            this.clientBurst = clientBurst;
+        }
+    }
+}
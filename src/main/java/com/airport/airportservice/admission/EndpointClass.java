@@ -0,0 +1,11 @@
+package com.airport.airportservice.admission;
+
+// Cost class of an endpoint, each class gets its own concurrency pool so cheap calls never queue behind expensive ones
+public enum EndpointClass {
+    // Reads that walk or return the whole table
+    SCAN,
+    // Single row reads by primary key
+    LOOKUP,
+    // Index searches over user supplied text, cheaper than a scan but far from a point read
+    SEARCH
+}
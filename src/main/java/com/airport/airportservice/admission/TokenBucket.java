@@ -0,0 +1,35 @@
+package com.airport.airportservice.admission;
+
+// Classic token bucket: holds up to burst tokens and refills at ratePerSecond, each admitted request takes one token
+class TokenBucket {
+
+    private final double ratePerNano;
+    private final double burst;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double ratePerSecond, double burst, long now) {
+        this.ratePerNano = ratePerSecond / 1_000_000_000d;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = now;
+    }
+
+    // Returns 0 when a token was taken, otherwise how many nanos until the next one is available
+    synchronized long tryConsume(long now) {
+        refill(now);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / ratePerNano);
+    }
+
+    // Callers read the clock before taking the lock, so a slightly older timestamp can show up here
+    private void refill(long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(burst, tokens + (now - lastRefill) * ratePerNano);
+            lastRefill = now;
+        }
+    }
+}
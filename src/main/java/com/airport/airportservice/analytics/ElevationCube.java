@@ -0,0 +1,337 @@
+package com.airport.airportservice.analytics;
+
+import com.airport.airportservice.index.AirportIndexListener;
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.ElevationRollup;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.RecursiveTask;
+
+// Count / sum / min / max of elevation for every combination of country, state and time zone, updated from the
+// AirportIndex. All 8 group-bys (cuboids) are kept, cuboid m holds the cells grouped by the dimensions whose bits are
+// set in m, so any group-by or drill-down is answered by rolling up a few thousand cells instead of scanning rows.
+// Min and max can't be taken back from a sum. The finest cells keep the number of airports per elevation, so a delete
+// there moves to the next elevation right away. The coarser cells count how many airports sit on their min and max
+// and only a delete of the last one marks the cell stale, it is recomputed from the finest cells on the next query.
+// Nothing here reads the index back, every answer comes from the events the cube has applied.
+@Component
+public class ElevationCube implements AirportIndexListener {
+
+    // The state dimension is Airport.getRegion(), "US-NY", so equal state codes of two countries stay apart
+    public static final List<String> DIMENSIONS = List.of("country", "state", "tz");
+
+    private static final int BASE = (1 << DIMENSIONS.size()) - 1;
+    // Rows per fork-join leaf on a rebuild
+    private static final int LEAF_SIZE = 8192;
+
+    private final List<Map<CellKey, Cell>> cuboids = new ArrayList<>();
+    private final List<Set<CellKey>> staleCells = new ArrayList<>();
+
+    public ElevationCube() {
+        for (int mask = 0; mask <= BASE; mask++) {
+            cuboids.add(new HashMap<>());
+            staleCells.add(new HashSet<>());
+        }
+    }
+
+    // The finest cuboid is built by a fork-join split of the list. invoke() computes in the calling thread while the
+    // forked halves go to the common pool, so the rebuild uses every core. The coarser cuboids are rolled up from it
+    @Override
+    public synchronized void onReload(List<Airport> airports) {
+        Map<CellKey, Cell> base = new BuildTask(airports, 0, airports.size()).invoke();
+        for (int mask = 0; mask < BASE; mask++) {
+            Map<CellKey, Cell> cuboid = new HashMap<>();
+            for (Map.Entry<CellKey, Cell> entry : base.entrySet()) {
+                cuboid.computeIfAbsent(entry.getKey().project(mask), k -> new Cell()).merge(entry.getValue());
+            }
+            cuboids.set(mask, cuboid);
+        }
+        cuboids.set(BASE, base);
+        staleCells.forEach(Set::clear);
+    }
+
+    @Override
+    public synchronized void onAdd(Airport airport) {
+        CellKey key = CellKey.of(airport);
+        for (int mask = 0; mask <= BASE; mask++) {
+            boolean finest = mask == BASE;
+            cuboids.get(mask).computeIfAbsent(key.project(mask), k -> new Cell(finest)).add(airport.getElevation());
+        }
+    }
+
+    @Override
+    public synchronized void onRemove(Airport airport) {
+        CellKey key = CellKey.of(airport);
+        for (int mask = 0; mask <= BASE; mask++) {
+            CellKey cellKey = key.project(mask);
+            Map<CellKey, Cell> cuboid = cuboids.get(mask);
+            Cell cell = cuboid.get(cellKey);
+            if (cell == null) {
+                continue;
+            }
+            boolean lostExtreme = cell.remove(airport.getElevation());
+            if (cell.airports == 0) {
+                cuboid.remove(cellKey);
+                staleCells.get(mask).remove(cellKey);
+            } else if (lostExtreme) {
+                staleCells.get(mask).add(cellKey);
+            }
+        }
+    }
+
+    // filters maps a dimension to the value it must have (drill-down), groupBy may be empty for the grand total
+    public synchronized ElevationRollup rollup(List<String> groupBy, Map<String, String> filters) {
+        int groupMask = 0;
+        for (String field : groupBy) {
+            int bit = bit(field);
+            if ((groupMask & bit) != 0) {
+                throw new IllegalArgumentException("'" + field + "' appears more than once in groupBy.");
+            }
+            groupMask |= bit;
+        }
+        int filterMask = 0;
+        for (String field : filters.keySet()) {
+            filterMask |= bit(field);
+        }
+        CellKey filter = CellKey.of(filters);
+        int sourceMask = groupMask | filterMask;
+
+        repair(sourceMask);
+
+        Map<CellKey, Cell> groups = new HashMap<>();
+        for (Map.Entry<CellKey, Cell> entry : cuboids.get(sourceMask).entrySet()) {
+            CellKey key = entry.getKey();
+            if (key.project(filterMask).equals(filter)) {
+                groups.computeIfAbsent(key.project(groupMask), k -> new Cell()).merge(entry.getValue());
+            }
+        }
+
+        Comparator<CellKey> order = (a, b) -> 0;
+        for (String field : groupBy) {
+            int dimension = DIMENSIONS.indexOf(field);
+            order = order.thenComparing(key -> key.value(dimension));
+        }
+        long count = 0;
+        List<ElevationRollup.Row> result = new ArrayList<>(groups.size());
+        for (CellKey key : groups.keySet().stream().sorted(order).toList()) {
+            Cell cell = groups.get(key);
+            Map<String, String> group = new LinkedHashMap<>();
+            for (String field : groupBy) {
+                group.put(field, key.value(DIMENSIONS.indexOf(field)));
+            }
+            result.add(describe(group, cell));
+            count += cell.airports;
+        }
+        return new ElevationRollup(List.copyOf(groupBy), new LinkedHashMap<>(filters), count, result);
+    }
+
+    // The finest cells always know their min and max, so stale coarser cells are rebuilt from them
+    private void repair(int mask) {
+        Set<CellKey> stale = staleCells.get(mask);
+        if (stale.isEmpty()) {
+            return;
+        }
+        Map<CellKey, Cell> cuboid = cuboids.get(mask);
+        stale.forEach(key -> cuboid.get(key).clearExtremes());
+        for (Map.Entry<CellKey, Cell> entry : cuboids.get(BASE).entrySet()) {
+            CellKey key = entry.getKey().project(mask);
+            if (stale.contains(key)) {
+                Cell finer = entry.getValue();
+                cuboid.get(key).offerExtremes(finer.min, finer.minCount, finer.max, finer.maxCount);
+            }
+        }
+        stale.clear();
+    }
+
+    private static ElevationRollup.Row describe(Map<String, String> group, Cell cell) {
+        if (cell.elevations == 0) {
+            return new ElevationRollup.Row(group, cell.airports, 0, null, null, null);
+        }
+        return new ElevationRollup.Row(group, cell.airports, cell.elevations, cell.min, cell.max,
+                (double) cell.sum / cell.elevations);
+    }
+
+    private static int bit(String field) {
+        int dimension = DIMENSIONS.indexOf(field);
+        if (dimension < 0) {
+            throw new IllegalArgumentException("Grouping by '" + field + "' is not allowed. Allowed fields: country, state, tz.");
+        }
+        return 1 << dimension;
+    }
+
+    // A cell coordinate, null for a dimension the cuboid does not group by and "" for an airport without the value
+    private record CellKey(String country, String state, String tz) {
+
+        static CellKey of(Airport airport) {
+            return new CellKey(valueOf(airport.getCountry()), valueOf(airport.getRegion()), valueOf(airport.getTz()));
+        }
+
+        static CellKey of(Map<String, String> values) {
+            return new CellKey(values.get("country"), values.get("state"), values.get("tz"));
+        }
+
+        CellKey project(int mask) {
+            return new CellKey((mask & 1) != 0 ? country : null, (mask & 2) != 0 ? state : null,
+                    (mask & 4) != 0 ? tz : null);
+        }
+
+        String value(int dimension) {
+            return switch (dimension) {
+                case 0 -> country;
+                case 1 -> state;
+                default -> tz;
+            };
+        }
+
+        private static String valueOf(String value) {
+            return value == null ? "" : value;
+        }
+    }
+
+    private static final class Cell {
+        long airports;
+        long elevations;
+        long sum;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        // Airports at exactly min / max, 0 once the last of them is removed
+        long minCount;
+        long maxCount;
+        // Airports per elevation, only in the finest cells
+        final TreeMap<Integer, Long> values;
+
+        Cell() {
+            this(false);
+        }
+
+        Cell(boolean finest) {
+            values = finest ? new TreeMap<>() : null;
+        }
+
+        void add(Integer elevation) {
+            airports++;
+            if (elevation != null) {
+                elevations++;
+                sum += elevation;
+                offerExtremes(elevation, 1, elevation, 1);
+                if (values != null) {
+                    values.merge(elevation, 1L, Long::sum);
+                }
+            }
+        }
+
+        // True when the cell no longer knows its min or max, never for a finest cell
+        boolean remove(Integer elevation) {
+            airports--;
+            if (elevation == null) {
+                return false;
+            }
+            elevations--;
+            sum -= elevation;
+            if (values != null) {
+                values.computeIfPresent(elevation, (value, count) -> count == 1 ? null : count - 1);
+            }
+            if (elevations == 0) {
+                clearExtremes();
+                return false;
+            }
+            if (values != null) {
+                min = values.firstKey();
+                minCount = values.get(min);
+                max = values.lastKey();
+                maxCount = values.get(max);
+                return false;
+            }
+            boolean lost = false;
+            if (elevation == min && minCount > 0 && --minCount == 0) {
+                lost = true;
+            }
+            if (elevation == max && maxCount > 0 && --maxCount == 0) {
+                lost = true;
+            }
+            return lost;
+        }
+
+        void merge(Cell other) {
+            airports += other.airports;
+            elevations += other.elevations;
+            sum += other.sum;
+            offerExtremes(other.min, other.minCount, other.max, other.maxCount);
+            if (values != null && other.values != null) {
+                other.values.forEach((value, count) -> values.merge(value, count, Long::sum));
+            }
+        }
+
+        void offerExtremes(int otherMin, long otherMinCount, int otherMax, long otherMaxCount) {
+            if (otherMinCount > 0) {
+                if (otherMin < min) {
+                    min = otherMin;
+                    minCount = otherMinCount;
+                } else if (otherMin == min) {
+                    minCount += otherMinCount;
+                }
+            }
+            if (otherMaxCount > 0) {
+                if (otherMax > max) {
+                    max = otherMax;
+                    maxCount = otherMaxCount;
+                } else if (otherMax == max) {
+                    maxCount += otherMaxCount;
+                }
+            }
+        }
+
+        void clearExtremes() {
+            min = Integer.MAX_VALUE;
+            max = Integer.MIN_VALUE;
+            minCount = 0;
+            maxCount = 0;
+        }
+    }
+
+    private static final class BuildTask extends RecursiveTask<Map<CellKey, Cell>> {
+
+        private final List<Airport> airports;
+        private final int from;
+        private final int to;
+
+        BuildTask(List<Airport> airports, int from, int to) {
+            this.airports = airports;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<CellKey, Cell> compute() {
+            if (to - from <= LEAF_SIZE) {
+                Map<CellKey, Cell> cells = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    Airport airport = airports.get(i);
+                    cells.computeIfAbsent(CellKey.of(airport), k -> new Cell(true)).add(airport.getElevation());
+                }
+                return cells;
+            }
+            int middle = (from + to) >>> 1;
+            BuildTask left = new BuildTask(airports, from, middle);
+            left.fork();
+            Map<CellKey, Cell> right = new BuildTask(airports, middle, to).compute();
+            Map<CellKey, Cell> joined = left.join();
+            Map<CellKey, Cell> into = joined.size() >= right.size() ? joined : right;
+            Map<CellKey, Cell> other = into == joined ? right : joined;
+            other.forEach((key, cell) -> into.merge(key, cell, (a, b) -> {
+                a.merge(b);
+                return a;
+            }));
+            return into;
+        }
+    }
+}
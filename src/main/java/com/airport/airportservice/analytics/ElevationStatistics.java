@@ -0,0 +1,187 @@
+package com.airport.airportservice.analytics;
+
+import com.airport.airportservice.index.AirportIndexListener;
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.ElevationDistribution;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+// Keeps one t-digest of elevations per country and per time zone, updated from the AirportIndex.
+// A digest can't forget a value, so next to it every group counts its airports per elevation. A delete takes the
+// airport out of the counts and marks the group dirty, its digest is rebuilt from the counts on the next query.
+// Nothing here reads the index back, the answers only depend on the events applied so far.
+@Component
+public class ElevationStatistics implements AirportIndexListener {
+
+    public static final List<String> GROUP_FIELDS = List.of("country", "tz");
+
+    private static final double COMPRESSION = 100;
+
+    private final Map<String, Function<Airport, String>> groupKeys = Map.of(
+            "country", Airport::getCountry,
+            "tz", Airport::getTz
+    );
+    private final Map<String, Map<String, TDigest>> digests = new HashMap<>();
+    // field -> group -> elevation -> airports
+    private final Map<String, Map<String, Map<Integer, Long>>> counts = new HashMap<>();
+    private final Map<String, Set<String>> dirtyGroups = new HashMap<>();
+
+    public ElevationStatistics() {
+        for (String field : GROUP_FIELDS) {
+            digests.put(field, new HashMap<>());
+            counts.put(field, new HashMap<>());
+            dirtyGroups.put(field, new HashSet<>());
+        }
+    }
+
+    // Partitions of the list are sketched and counted in parallel and the partial results merged into one per group
+    @Override
+    public synchronized void onReload(List<Airport> airports) {
+        for (String field : GROUP_FIELDS) {
+            Function<Airport, String> key = groupKeys.get(field);
+            Map<String, Group> rebuilt = airports.parallelStream()
+                    .filter(a -> hasKey(key.apply(a)) && a.getElevation() != null)
+                    .collect(Collector.of(
+                            HashMap::new,
+                            (partial, a) -> partial.computeIfAbsent(key.apply(a), g -> new Group()).add(a.getElevation()),
+                            ElevationStatistics::mergePartitions));
+            Map<String, TDigest> fieldDigests = new HashMap<>();
+            Map<String, Map<Integer, Long>> fieldCounts = new HashMap<>();
+            rebuilt.forEach((group, partial) -> {
+                fieldDigests.put(group, partial.digest);
+                fieldCounts.put(group, partial.counts);
+            });
+            digests.put(field, fieldDigests);
+            counts.put(field, fieldCounts);
+            dirtyGroups.get(field).clear();
+        }
+    }
+
+    @Override
+    public synchronized void onAdd(Airport airport) {
+        if (airport.getElevation() == null) {
+            return;
+        }
+        for (String field : GROUP_FIELDS) {
+            String group = groupKeys.get(field).apply(airport);
+            if (hasKey(group)) {
+                digests.get(field).computeIfAbsent(group, g -> new TDigest(COMPRESSION)).add(airport.getElevation());
+                counts.get(field).computeIfAbsent(group, g -> new HashMap<>()).merge(airport.getElevation(), 1L, Long::sum);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onRemove(Airport airport) {
+        if (airport.getElevation() == null) {
+            return;
+        }
+        for (String field : GROUP_FIELDS) {
+            String group = groupKeys.get(field).apply(airport);
+            Map<Integer, Long> groupCounts = counts.get(field).get(group);
+            if (groupCounts == null) {
+                continue;
+            }
+            groupCounts.computeIfPresent(airport.getElevation(), (elevation, count) -> count == 1 ? null : count - 1);
+            if (groupCounts.isEmpty()) {
+                counts.get(field).remove(group);
+                digests.get(field).remove(group);
+                dirtyGroups.get(field).remove(group);
+            } else {
+                dirtyGroups.get(field).add(group);
+            }
+        }
+    }
+
+    // Every group is answered from its digest, a group touched by a delete first has it rebuilt from its counts
+    public synchronized Map<String, ElevationDistribution> distribution(String groupBy, List<Double> quantiles, int buckets) {
+        if (!GROUP_FIELDS.contains(groupBy)) {
+            throw new IllegalArgumentException("Grouping by '" + groupBy + "' is not allowed. Allowed fields: country, tz.");
+        }
+        if (buckets < 1 || buckets > 100) {
+            throw new IllegalArgumentException("Number of histogram buckets must be between 1 and 100.");
+        }
+        for (Double q : quantiles) {
+            if (q == null || q < 0 || q > 1) {
+                throw new IllegalArgumentException("Quantiles must be in the range [0, 1].");
+            }
+        }
+
+        rebuildDirty(groupBy);
+
+        Map<String, ElevationDistribution> result = new TreeMap<>();
+        digests.get(groupBy).forEach((group, digest) -> result.put(group, describe(digest, quantiles, buckets)));
+        return result;
+    }
+
+    // O(distinct elevations) per dirty group, each elevation goes in once with its airport count as weight
+    private void rebuildDirty(String field) {
+        Set<String> dirty = dirtyGroups.get(field);
+        for (String group : dirty) {
+            TDigest digest = new TDigest(COMPRESSION);
+            counts.get(field).get(group).forEach((elevation, count) -> digest.add(elevation, count));
+            digests.get(field).put(group, digest);
+        }
+        dirty.clear();
+    }
+
+    private static ElevationDistribution describe(TDigest digest, List<Double> quantiles, int buckets) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Double q : quantiles) {
+            values.put(label(q), digest.quantile(q));
+        }
+
+        List<ElevationDistribution.HistogramBucket> histogram = new ArrayList<>(buckets);
+        double width = (digest.max() - digest.min()) / buckets;
+        double previousCdf = 0;
+        for (int i = 0; i < buckets; i++) {
+            double from = digest.min() + i * width;
+            double to = i == buckets - 1 ? digest.max() : from + width;
+            double cdf = digest.cdf(to);
+            histogram.add(new ElevationDistribution.HistogramBucket(from, to, Math.round((cdf - previousCdf) * digest.count())));
+            previousCdf = cdf;
+        }
+
+        return new ElevationDistribution(digest.count(), digest.min(), digest.max(), values, histogram);
+    }
+
+    // 0.5 -> p50, 0.999 -> p99.9
+    private static String label(double q) {
+        return "p" + BigDecimal.valueOf(q).movePointRight(2).stripTrailingZeros().toPlainString();
+    }
+
+    private static boolean hasKey(String group) {
+        return group != null && !group.isBlank();
+    }
+
+    private static Map<String, Group> mergePartitions(Map<String, Group> left, Map<String, Group> right) {
+        right.forEach((group, partial) -> left.merge(group, partial, (a, b) -> {
+            a.digest.merge(b.digest);
+            b.counts.forEach((elevation, count) -> a.counts.merge(elevation, count, Long::sum));
+            return a;
+        }));
+        return left;
+    }
+
+    // One group's digest and counts while a reload builds them
+    private static final class Group {
+        final TDigest digest = new TDigest(COMPRESSION);
+        final Map<Integer, Long> counts = new HashMap<>();
+
+        void add(int elevation) {
+            digest.add(elevation);
+            counts.merge(elevation, 1L, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.airport.airportservice.analytics;
+
+import com.airport.airportservice.index.AirportIndexListener;
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.TopKResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+// Value frequencies for tz, country, state and city, kept up to date from the AirportIndex so top-K never scans the table.
+// Up to airport.topk.exact-max-rows rows every distinct value is counted and top-K is a bounded heap over the counts.
+// Above that each field switches to a Space-Saving sketch with airport.topk.sketch-capacity counters.
+// The mode is picked on every reload.
+@Component
+public class FrequencyCounters implements AirportIndexListener {
+
+    public static final List<String> FIELDS = List.of("tz", "country", "state", "city");
+
+    private static final Comparator<Map.Entry<String, long[]>> BY_COUNT =
+            Comparator.<Map.Entry<String, long[]>>comparingLong(e -> e.getValue()[0])
+                    .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+
+    private final Map<String, Function<Airport, String>> fieldValues = Map.of(
+            "tz", Airport::getTz,
+            "country", Airport::getCountry,
+            "state", Airport::getState,
+            "city", Airport::getCity
+    );
+    private final long exactMaxRows;
+    private final int sketchCapacity;
+
+    private final Map<String, Map<String, long[]>> exactCounts = new HashMap<>();
+    private final Map<String, SpaceSaving> sketches = new HashMap<>();
+    private final Map<String, Long> totals = new HashMap<>();
+    private boolean sketchMode;
+
+    @Autowired
+    public FrequencyCounters(@Value("${airport.topk.exact-max-rows:1000000}") long exactMaxRows,
+                             @Value("${airport.topk.sketch-capacity:1000}") int sketchCapacity) {
+        this.exactMaxRows = exactMaxRows;
+        this.sketchCapacity = sketchCapacity;
+        reset();
+    }
+
+    @Override
+    public synchronized void onReload(List<Airport> airports) {
+        sketchMode = airports.size() > exactMaxRows;
+        reset();
+        for (Airport airport : airports) {
+            onAdd(airport);
+        }
+    }
+
+    @Override
+    public synchronized void onAdd(Airport airport) {
+        for (String field : FIELDS) {
+            String value = fieldValues.get(field).apply(airport);
+            if (!hasValue(value)) {
+                continue;
+            }
+            totals.merge(field, 1L, Long::sum);
+            if (sketchMode) {
+                sketches.get(field).offer(value);
+            } else {
+                exactCounts.get(field).computeIfAbsent(value, v -> new long[1])[0]++;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onRemove(Airport airport) {
+        for (String field : FIELDS) {
+            String value = fieldValues.get(field).apply(airport);
+            if (!hasValue(value)) {
+                continue;
+            }
+            totals.merge(field, -1L, Long::sum);
+            if (sketchMode) {
+                sketches.get(field).retract(value);
+            } else {
+                Map<String, long[]> counts = exactCounts.get(field);
+                long[] count = counts.get(value);
+                if (count != null && --count[0] == 0) {
+                    counts.remove(value);
+                }
+            }
+        }
+    }
+
+    public synchronized TopKResult top(String field, int k) {
+        if (!FIELDS.contains(field)) {
+            throw new IllegalArgumentException("Top-K by '" + field + "' is not allowed. Allowed fields: tz, country, state, city.");
+        }
+        int maxK = sketchMode ? sketchCapacity : 1000;
+        if (k < 1 || k > maxK) {
+            throw new IllegalArgumentException("k must be between 1 and " + maxK + ".");
+        }
+        return sketchMode ? topFromSketch(field, k) : topExact(field, k);
+    }
+
+    // Min-heap of size k over the counts, O(d log k) instead of sorting all d distinct values
+    private TopKResult topExact(String field, int k) {
+        PriorityQueue<Map.Entry<String, long[]>> heap = new PriorityQueue<>(k + 1, BY_COUNT);
+        for (Map.Entry<String, long[]> entry : exactCounts.get(field).entrySet()) {
+            if (heap.size() < k) {
+                heap.add(entry);
+            } else if (BY_COUNT.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        List<TopKResult.Entry> entries = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            Map.Entry<String, long[]> entry = heap.poll();
+            entries.add(0, new TopKResult.Entry(entry.getKey(), entry.getValue()[0], 0, true));
+        }
+        return new TopKResult(field, k, "exact", totals.get(field), 0, entries);
+    }
+
+    // A value is guaranteed in the top k when its lower bound (count - error) beats the next counter's estimate
+    private TopKResult topFromSketch(String field, int k) {
+        SpaceSaving sketch = sketches.get(field);
+        List<SpaceSaving.Counter> counters = sketch.top(k + 1);
+        long nextCount = counters.size() > k ? counters.get(k).getCount() : 0;
+
+        List<TopKResult.Entry> entries = new ArrayList<>(k);
+        for (int i = 0; i < Math.min(k, counters.size()); i++) {
+            SpaceSaving.Counter counter = counters.get(i);
+            entries.add(new TopKResult.Entry(counter.getValue(), counter.getCount(), counter.getError(),
+                    counter.getCount() - counter.getError() >= nextCount));
+        }
+        return new TopKResult(field, k, "sketch", totals.get(field), sketch.errorBound(), entries);
+    }
+
+    private void reset() {
+        for (String field : FIELDS) {
+            exactCounts.put(field, new HashMap<>());
+            sketches.put(field, new SpaceSaving(sketchCapacity));
+            totals.put(field, 0L);
+        }
+    }
+
+    private static boolean hasValue(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -0,0 +1,109 @@
+package com.airport.airportservice.analytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Space-Saving heavy hitter sketch (Metwally et al.) with a fixed number of counters.
+// When all counters are taken, a new value evicts the smallest one and inherits its count as error,
+// so every count is an overestimate by at most its error, and every error is at most inserted / capacity.
+// Not thread safe, callers guard it.
+public class SpaceSaving {
+
+    public static final class Counter {
+        private final String value;
+        private long count;
+        private long error;
+
+        private Counter(String value, long count, long error) {
+            this.value = value;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+    }
+
+    private static final Comparator<Counter> BY_COUNT = Comparator.<Counter>comparingLong(c -> c.count)
+            .thenComparing(c -> c.value);
+
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> ordered = new TreeSet<>(BY_COUNT);
+    private long inserted;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long inserted() {
+        return inserted;
+    }
+
+    public void offer(String value) {
+        inserted++;
+        Counter counter = counters.get(value);
+        if (counter != null) {
+            ordered.remove(counter);
+            counter.count++;
+            ordered.add(counter);
+            return;
+        }
+
+        if (counters.size() < capacity) {
+            counter = new Counter(value, 1, 0);
+        } else {
+            Counter smallest = ordered.pollFirst();
+            counters.remove(smallest.value);
+            counter = new Counter(value, smallest.count + 1, smallest.count);
+        }
+        counters.put(value, counter);
+        ordered.add(counter);
+    }
+
+    // Best effort for deletes: a tracked value is decremented, an untracked one was already folded into some error
+    public void retract(String value) {
+        Counter counter = counters.get(value);
+        if (counter == null || counter.count == 0) {
+            return;
+        }
+        ordered.remove(counter);
+        counter.count--;
+        counter.error = Math.min(counter.error, counter.count);
+        ordered.add(counter);
+    }
+
+    // Largest overestimate any counter can have
+    public long errorBound() {
+        return counters.size() < capacity ? 0 : inserted / capacity;
+    }
+
+    // Counters ordered by estimated count, highest first
+    public List<Counter> top(int k) {
+        List<Counter> result = new ArrayList<>(Math.min(k, counters.size()));
+        for (Counter counter : ordered.descendingSet()) {
+            if (result.size() == k) {
+                break;
+            }
+            result.add(counter);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,203 @@
+package com.airport.airportservice.analytics;
+
+import java.util.Arrays;
+
+// Merging t-digest (Dunning & Ertl). Keeps a bounded number of weighted centroids, dense at the tails and coarse
+// in the middle, so quantiles and cdf can be answered from a few hundred numbers no matter how many values went in.
+// Two digests built on different partitions can be merged into one, which is what lets us build them in parallel.
+// Not thread safe, callers guard it.
+public class TDigest {
+
+    private final double compression;
+
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression) {
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression * Math.PI / 2) + 2;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferMeans = new double[capacity * 5];
+        this.bufferWeights = new double[capacity * 5];
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void add(double value, double weight) {
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = value;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        totalWeight += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        // centroid means never reach the real extremes, so carry them over explicitly
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return Math.round(totalWeight);
+    }
+
+    public double min() {
+        return totalWeight == 0 ? Double.NaN : min;
+    }
+
+    public double max() {
+        return totalWeight == 0 ? Double.NaN : max;
+    }
+
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be in the range [0, 1].");
+        }
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+
+        double index = q * totalWeight;
+        if (index <= weights[0] / 2) {
+            return interpolate(min, means[0], index / (weights[0] / 2));
+        }
+
+        double weightSoFar = weights[0] / 2;
+        for (int i = 0; i < centroids - 1; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (weightSoFar + step > index) {
+                return interpolate(means[i], means[i + 1], (index - weightSoFar) / step);
+            }
+            weightSoFar += step;
+        }
+
+        int last = centroids - 1;
+        return interpolate(means[last], max, Math.min(1, (index - weightSoFar) / (weights[last] / 2)));
+    }
+
+    // Fraction of the values that are <= x
+    public double cdf(double x) {
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (x < min) {
+            return 0;
+        }
+        if (x >= max) {
+            return 1;
+        }
+        if (centroids == 1) {
+            return (x - min) / (max - min);
+        }
+
+        if (x < means[0]) {
+            return fraction(x, min, means[0]) * weights[0] / 2 / totalWeight;
+        }
+
+        double weightSoFar = weights[0] / 2;
+        for (int i = 0; i < centroids - 1; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (x < means[i + 1]) {
+                return (weightSoFar + fraction(x, means[i], means[i + 1]) * step) / totalWeight;
+            }
+            weightSoFar += step;
+        }
+
+        int last = centroids - 1;
+        return (weightSoFar + fraction(x, means[last], max) * weights[last] / 2) / totalWeight;
+    }
+
+    // Folds the buffered values into the centroid list, merging neighbours while the k1 scale function allows it
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+
+        int n = centroids + buffered;
+        double[] allMeans = Arrays.copyOf(means, n);
+        double[] allWeights = Arrays.copyOf(weights, n);
+        System.arraycopy(bufferMeans, 0, allMeans, centroids, buffered);
+        System.arraycopy(bufferWeights, 0, allWeights, centroids, buffered);
+        buffered = 0;
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(allMeans[a], allMeans[b]));
+
+        double[] mergedMeans = new double[means.length];
+        double[] mergedWeights = new double[weights.length];
+        int count = 0;
+
+        double weightSoFar = 0;
+        double limit = totalWeight * qLimit(0);
+        mergedMeans[0] = allMeans[order[0]];
+        mergedWeights[0] = allWeights[order[0]];
+        for (int i = 1; i < n; i++) {
+            double mean = allMeans[order[i]];
+            double weight = allWeights[order[i]];
+            if (weightSoFar + mergedWeights[count] + weight <= limit) {
+                double combined = mergedWeights[count] + weight;
+                mergedMeans[count] += (mean - mergedMeans[count]) * weight / combined;
+                mergedWeights[count] = combined;
+            } else {
+                weightSoFar += mergedWeights[count];
+                limit = totalWeight * qLimit(weightSoFar / totalWeight);
+                count++;
+                if (count == mergedMeans.length) {
+                    mergedMeans = Arrays.copyOf(mergedMeans, count * 2);
+                    mergedWeights = Arrays.copyOf(mergedWeights, count * 2);
+                }
+                mergedMeans[count] = mean;
+                mergedWeights[count] = weight;
+            }
+        }
+
+        means = mergedMeans;
+        weights = mergedWeights;
+        centroids = count + 1;
+    }
+
+    // Largest q a centroid starting at q0 may extend to, k1(q) = delta / 2pi * asin(2q - 1)
+    private double qLimit(double q0) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * q0 - 1) + 1;
+        if (k >= compression / 4) {
+            return 1;
+        }
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    private static double interpolate(double from, double to, double t) {
+        return from + t * (to - from);
+    }
+
+    private static double fraction(double x, double from, double to) {
+        return to == from ? 1 : (x - from) / (to - from);
+    }
+}
@@ -0,0 +1,48 @@
+package com.airport.airportservice.config;
+
+import java.util.Locale;
+
+// Upload formats DataLoader understands
+public enum AirportFormat {
+    // One object keyed by ICAO, like data/airports-sample.json
+    JSON,
+    // One airport object per line
+    NDJSON,
+    // Header row with the Airport field names, then one airport per row
+    CSV;
+
+    public static AirportFormat fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported format '" + name + "'. Supported: json, ndjson, csv.");
+        }
+    }
+
+    // Falls back to JSON when nothing more specific is given, which is what the endpoints always accepted
+    public static AirportFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            String type = contentType.toLowerCase(Locale.ROOT);
+            if (type.contains("ndjson") || type.contains("jsonl") || type.contains("json-seq")) {
+                return NDJSON;
+            }
+            if (type.contains("csv")) {
+                return CSV;
+            }
+        }
+        return JSON;
+    }
+
+    public static AirportFormat fromFileName(String fileName) {
+        if (fileName != null) {
+            String name = fileName.toLowerCase(Locale.ROOT).replaceAll("\\.(gz|zst)$", "");
+            if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+                return NDJSON;
+            }
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+        }
+        return JSON;
+    }
+}
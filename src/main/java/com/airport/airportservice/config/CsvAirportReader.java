@@ -0,0 +1,278 @@
+package com.airport.airportservice.config;
+
+import com.airport.airportservice.model.Airport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+// Hand written RFC 4180 CSV reader that works on raw bytes. It reads from a channel in 1MB chunks, copies each row
+// once into a reusable byte array and only creates Strings for the text columns, numbers are parsed straight from
+// the bytes. The first row is the header and names the Airport fields,
+// in any order, unknown columns are skipped.
+class CsvAirportReader {
+
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private static final String[] FIELDS = {"icao", "iata", "name", "city", "state", "country", "elevation", "lat", "lon", "tz"};
+    private static final int ICAO = 0, IATA = 1, NAME = 2, CITY = 3, STATE = 4, COUNTRY = 5, ELEVATION = 6, LAT = 7, LON = 8, TZ = 9;
+
+    // Powers of ten that are exact as doubles, dividing an exact mantissa by one of them is correctly rounded
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final Consumer<Airport> sink;
+
+    private int[] columnField;
+    private long records;
+
+    private byte[] row = new byte[1024];
+    private int rowLength;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fields;
+    private int fieldStart;
+    private boolean inQuotes;
+    private boolean quotePending;
+
+    CsvAirportReader(Consumer<Airport> sink) {
+        this.sink = sink;
+    }
+
+    long read(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            consume(buffer);
+            buffer.clear();
+        }
+        return finish();
+    }
+
+    private void consume(ByteBuffer buffer) {
+        while (buffer.hasRemaining()) {
+            accept(buffer.get());
+        }
+    }
+
+    private void accept(byte b) {
+        if (inQuotes) {
+            if (quotePending) {
+                quotePending = false;
+                if (b == '"') {
+                    append(b);
+                    return;
+                }
+                inQuotes = false;
+            } else if (b == '"') {
+                quotePending = true;
+                return;
+            } else {
+                append(b);
+                return;
+            }
+        }
+
+        switch (b) {
+            case '"' -> {
+                if (rowLength == fieldStart) {
+                    inQuotes = true;
+                } else {
+                    append(b);
+                }
+            }
+            case ',' -> endField();
+            case '\n' -> {
+                endField();
+                endRow();
+            }
+            case '\r' -> {
+                // CRLF line endings, the \n ends the row
+            }
+            default -> append(b);
+        }
+    }
+
+    private long finish() {
+        if (inQuotes && !quotePending) {
+            throw new IllegalArgumentException("CSV record " + (records + 1) + " has an unterminated quoted field.");
+        }
+        inQuotes = false;
+        quotePending = false;
+        if (rowLength > 0 || fields > 0) {
+            endField();
+            endRow();
+        }
+        return records;
+    }
+
+    private void append(byte b) {
+        if (rowLength == row.length) {
+            row = Arrays.copyOf(row, row.length * 2);
+        }
+        row[rowLength++] = b;
+    }
+
+    private void endField() {
+        if (fields == starts.length) {
+            starts = Arrays.copyOf(starts, fields * 2);
+            ends = Arrays.copyOf(ends, fields * 2);
+        }
+        starts[fields] = fieldStart;
+        ends[fields] = rowLength;
+        fields++;
+        fieldStart = rowLength;
+    }
+
+    private void endRow() {
+        boolean blank = fields == 1 && ends[0] == starts[0];
+        if (!blank) {
+            if (columnField == null) {
+                readHeader();
+            } else {
+                records++;
+                sink.accept(toAirport());
+            }
+        }
+        rowLength = 0;
+        fields = 0;
+        fieldStart = 0;
+    }
+
+    private void readHeader() {
+        columnField = new int[fields];
+        boolean hasIcao = false;
+        for (int i = 0; i < fields; i++) {
+            String name = text(i).trim().toLowerCase(Locale.ROOT);
+            if (i == 0 && name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            columnField[i] = Arrays.asList(FIELDS).indexOf(name);
+            hasIcao |= columnField[i] == ICAO;
+        }
+        if (!hasIcao) {
+            throw new IllegalArgumentException("CSV header must contain an 'icao' column.");
+        }
+    }
+
+    private Airport toAirport() {
+        Airport airport = new Airport();
+        for (int i = 0; i < Math.min(fields, columnField.length); i++) {
+            switch (columnField[i]) {
+                case ICAO -> airport.setIcao(isEmpty(i) ? null : text(i));
+                case IATA -> airport.setIata(text(i));
+                case NAME -> airport.setName(text(i));
+                case CITY -> airport.setCity(text(i));
+                case STATE -> airport.setState(text(i));
+                case COUNTRY -> airport.setCountry(text(i));
+                case ELEVATION -> airport.setElevation(isEmpty(i) ? null : parseInt(i));
+                case LAT -> airport.setLat(isEmpty(i) ? null : parseDouble(i));
+                case LON -> airport.setLon(isEmpty(i) ? null : parseDouble(i));
+                case TZ -> airport.setTz(text(i));
+                default -> {
+                    // column we don't store
+                }
+            }
+        }
+        return airport;
+    }
+
+    private boolean isEmpty(int field) {
+        return ends[field] == starts[field];
+    }
+
+    private String text(int field) {
+        return new String(row, starts[field], ends[field] - starts[field], StandardCharsets.UTF_8);
+    }
+
+    private int parseInt(int field) {
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = row[i] == '-';
+        if (negative || row[i] == '+') {
+            i++;
+        }
+        if (i == end || end - i > 9) {
+            return slowParseInt(field);
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            int digit = row[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return slowParseInt(field);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // Plain decimals with up to 15 significant digits are parsed exactly from the bytes,
+    // anything else (exponents, very long fractions, spaces) goes through Double.parseDouble
+    private double parseDouble(int field) {
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = row[i] == '-';
+        if (negative || row[i] == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        boolean sawDigit = false;
+        for (; i < end; i++) {
+            byte b = row[i];
+            if (b == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9 || digits == 15) {
+                return slowParseDouble(field);
+            }
+            sawDigit = true;
+            if (mantissa != 0 || digit != 0) {
+                digits++;
+            }
+            mantissa = mantissa * 10 + digit;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (!sawDigit || scale >= POWERS_OF_TEN.length) {
+            return slowParseDouble(field);
+        }
+        double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private int slowParseInt(int field) {
+        try {
+            return Integer.parseInt(text(field).trim());
+        } catch (NumberFormatException e) {
+            throw invalidNumber(field);
+        }
+    }
+
+    private double slowParseDouble(int field) {
+        try {
+            return Double.parseDouble(text(field).trim());
+        } catch (NumberFormatException e) {
+            throw invalidNumber(field);
+        }
+    }
+
+    private IllegalArgumentException invalidNumber(int field) {
+        return new IllegalArgumentException("CSV record " + records + ": '" + text(field) + "' is not a valid number for "
+                + FIELDS[columnField[field]] + ".");
+    }
+}
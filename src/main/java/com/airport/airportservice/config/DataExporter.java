@@ -0,0 +1,91 @@
+package com.airport.airportservice.config;
+
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.repository.AirportRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Writes the table in the keyed JSON DataLoader reads, {"00AK": {"icao": "00AK", ...}, ...}, so an export can be
+// loaded into another environment as it is. Rows go from a database cursor straight into a streaming generator and
+// are detached once written, memory does not grow with the table.
+@Component
+public class DataExporter {
+
+    private static final JsonFactory JSON = JsonFactory.builder().disable(StreamWriteFeature.AUTO_CLOSE_TARGET).build();
+
+    private final AirportRepository airportRepository;
+    private final TransactionTemplate readOnly;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public DataExporter(AirportRepository airportRepository, PlatformTransactionManager transactionManager) {
+        this.airportRepository = airportRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    // Returns the number of airports written. The stream is flushed but not closed. When the database fails part way
+    // the output is cut off and is not valid JSON, so a load of it fails instead of loading part of the table.
+    public long export(OutputStream out) {
+        Long exported = readOnly.execute(status -> {
+            try (Stream<Airport> rows = airportRepository.streamAllByIcao();
+                 JsonGenerator generator = JSON.createGenerator(out)) {
+                long count = 0;
+                generator.writeStartObject();
+                for (Iterator<Airport> it = rows.iterator(); it.hasNext(); count++) {
+                    Airport airport = it.next();
+                    generator.writeFieldName(airport.getIcao());
+                    write(generator, airport);
+                    entityManager.detach(airport);
+                }
+                generator.writeEndObject();
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return exported == null ? 0 : exported;
+    }
+
+    // The stored columns only, region is derived on the way in
+    private static void write(JsonGenerator generator, Airport airport) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("icao", airport.getIcao());
+        generator.writeStringField("iata", airport.getIata());
+        generator.writeStringField("name", airport.getName());
+        generator.writeStringField("city", airport.getCity());
+        generator.writeStringField("state", airport.getState());
+        generator.writeStringField("country", airport.getCountry());
+        writeNumber(generator, "elevation", airport.getElevation());
+        writeNumber(generator, "lat", airport.getLat());
+        writeNumber(generator, "lon", airport.getLon());
+        generator.writeStringField("tz", airport.getTz());
+        generator.writeEndObject();
+    }
+
+    private static void writeNumber(JsonGenerator generator, String field, Number value) throws IOException {
+        generator.writeFieldName(field);
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Integer i) {
+            generator.writeNumber(i);
+        } else {
+            generator.writeNumber(value.doubleValue());
+        }
+    }
+}
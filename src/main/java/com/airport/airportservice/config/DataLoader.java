@@ -1,35 +1,393 @@
 package com.airport.airportservice.config;
 
+import com.airport.airportservice.index.AirportIndex;
+import com.airport.airportservice.index.IcaoLocks;
 import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.IngestionReport;
 import com.airport.airportservice.repository.AirportRepository;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.airport.airportservice.service.AirportValidator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.airlift.compress.zstd.ZstdInputStream;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 @Component
 public class DataLoader {
 
+    private static final Logger log = LoggerFactory.getLogger(DataLoader.class);
+
+    // Rows written per flush, matches hibernate.jdbc.batch_size so every flush is one JDBC batch per statement type
+    private static final int BATCH_SIZE = 500;
+
     private final AirportRepository airportRepository;
+    private final AirportIndex airportIndex;
+    private final IcaoLocks icaoLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final long maxUploadBytes;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
-    public DataLoader(AirportRepository airportRepository) {
+    public DataLoader(AirportRepository airportRepository, AirportIndex airportIndex, IcaoLocks icaoLocks,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${airport.load.max-upload-bytes:536870912}") long maxUploadBytes) {
         this.airportRepository = airportRepository;
+        this.airportIndex = airportIndex;
+        this.icaoLocks = icaoLocks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxUploadBytes = maxUploadBytes;
     }
 
     // This will take the stream from user provided json and will populate the db.
-    public void loadAirportDataFromInputStream(InputStream inputStream) {
+    // Entries are parsed one at a time and written in batches while the rest of the stream is still arriving,
+    // so memory stays flat whatever the size of the upload. It all runs in one transaction.
+    public long loadAirportDataFromInputStream(InputStream inputStream) {
+        return loadAirportDataFromInputStream(inputStream, null, AirportFormat.JSON);
+    }
+
+    // Same as above for a compressed body, encoding is the Content-Encoding of the request: gzip, zstd or identity
+    public long loadAirportDataFromInputStream(InputStream inputStream, String encoding) {
+        return loadAirportDataFromInputStream(inputStream, encoding, AirportFormat.JSON);
+    }
+
+    // CSV and NDJSON rows go through the same validation as addAirport, the first invalid row fails the whole load
+    public long loadAirportDataFromInputStream(InputStream inputStream, String encoding, AirportFormat format) {
+        InputStream decoded;
+        try {
+            decoded = decompress(inputStream, encoding);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load airport data: " + e.getMessage(), e);
+        }
+        return load(sink -> readAirports(decoded, format, sink), format);
+    }
+
+    // For a body read straight off the network. It is copied to a temp file first, as sent (still compressed), so a
+    // slow or stalled client holds no ICAO stripe and no transaction while it uploads, only the load from the local
+    // file does. Bodies above airport.load.max-upload-bytes are rejected before anything is written.
+    public long loadAirportDataFromUpload(InputStream body, String encoding, AirportFormat format) {
+        return loadAirportDataFromUpload(body, encoding, format, maxUploadBytes);
+    }
+
+    long loadAirportDataFromUpload(InputStream body, String encoding, AirportFormat format, long maxBytes) {
+        Path spool = null;
+        try {
+            spool = Files.createTempFile("airport-upload-", ".tmp");
+            try (OutputStream out = Files.newOutputStream(spool)) {
+                copyAtMost(body, out, maxBytes);
+            }
+            try (InputStream spooled = new BufferedInputStream(Files.newInputStream(spool), 64 * 1024)) {
+                return loadAirportDataFromInputStream(spooled, encoding, format);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load airport data: " + e.getMessage(), e);
+        } finally {
+            if (spool != null) {
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException e) {
+                    log.warn("Could not delete upload spool file {}", spool, e);
+                }
+            }
+        }
+    }
+
+    private static void copyAtMost(InputStream in, OutputStream out, long maxBytes) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long copied = 0;
+        for (int read; (read = in.read(buffer)) != -1; ) {
+            copied += read;
+            if (copied > maxBytes) {
+                throw new IllegalArgumentException("Upload is larger than the " + maxBytes + " bytes allowed.");
+            }
+            out.write(buffer, 0, read);
+        }
+    }
+
+    // Single-row writes wait while a bulk load holds every ICAO stripe, they would be overwritten by the reload anyway
+    private long load(AirportSource source, AirportFormat format) {
+        return icaoLocks.withAllLocks(() -> {
+            long loaded = loadLocked(source, format);
+            // A bulk load publishes a snapshot built from scratch instead of patching it row by row
+            airportIndex.reload();
+            return loaded;
+        });
+    }
+
+    private long loadLocked(AirportSource source, AirportFormat format) {
+        long loaded;
+        try {
+            loaded = transactionTemplate.execute(status -> {
+                BatchWriter writer = new BatchWriter();
+                try {
+                    source.readInto(format == AirportFormat.JSON ? writer : validating(writer));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return writer.finish();
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load airport data: " + e.getMessage(), e);
+        }
+        System.out.println("Airport data loaded from uploaded file.");
+        return loaded;
+    }
+
+    // Diff mode for full re-uploads: the file is taken as the complete dataset and compared with the current
+    // table (read once, through the index), then only inserts, updates and deletes are written, in batches.
+    public IngestionReport diffLoadAirportDataFromInputStream(InputStream inputStream) {
+        return diffLoadAirportDataFromInputStream(inputStream, AirportFormat.JSON);
+    }
+
+    public IngestionReport diffLoadAirportDataFromInputStream(InputStream inputStream, AirportFormat format) {
+        return diffLoadAirportDataFromInputStream(inputStream, null, format);
+    }
+
+    public IngestionReport diffLoadAirportDataFromInputStream(InputStream inputStream, String encoding, AirportFormat format) {
+        long start = System.currentTimeMillis();
+        Map<String, Airport> incoming;
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            Map<String, Airport> airportMap = objectMapper.readValue(inputStream,
-                    new TypeReference<Map<String, Airport>>() {});
-            airportRepository.saveAll(airportMap.values());
-            System.out.println("Airport data loaded from uploaded file.");
+            incoming = readAirports(decompress(inputStream, encoding), format);
         } catch (Exception e) {
             throw new RuntimeException("Failed to load airport data: " + e.getMessage(), e);
         }
+
+        // The delta is computed against the index and applied under every stripe, no single-row write can slip in between
+        IngestionReport report = icaoLocks.withAllLocks(() -> applyDiff(incoming, start));
+        log.info("Airport data diff applied from uploaded file: {}", report);
+        return report;
+    }
+
+    private IngestionReport applyDiff(Map<String, Airport> incoming, long start) {
+        Map<String, Airport> current = new HashMap<>();
+        for (Airport airport : airportIndex.all()) {
+            current.put(airport.getIcao(), airport);
+        }
+
+        List<Airport> inserts = new ArrayList<>();
+        List<Airport> updates = new ArrayList<>();
+        long unchanged = 0;
+        for (Airport airport : incoming.values()) {
+            Airport existing = current.remove(airport.getIcao());
+            if (existing == null) {
+                inserts.add(airport);
+            } else if (sameContent(existing, airport)) {
+                unchanged++;
+            } else {
+                updates.add(airport);
+            }
+        }
+        List<String> deletes = new ArrayList<>(current.keySet());
+
+        transactionTemplate.executeWithoutResult(status -> applyDelta(inserts, updates, deletes));
+
+        // The index already has every unchanged row, the delta is published as one new snapshot
+        List<Airport> upserts = new ArrayList<>(inserts);
+        upserts.addAll(updates);
+        airportIndex.apply(upserts, deletes);
+
+        return new IngestionReport(inserts.size(), updates.size(), deletes.size(), unchanged,
+                System.currentTimeMillis() - start);
+    }
+
+    // persist() skips the select merge() would do for an assigned id, updates load their rows with one IN query
+    // per batch and are flushed by dirty checking, deletes are one bulk statement per batch
+    private void applyDelta(List<Airport> inserts, List<Airport> updates, List<String> deletes) {
+        for (int i = 0; i < inserts.size(); i++) {
+            entityManager.persist(inserts.get(i));
+            if ((i + 1) % BATCH_SIZE == 0) {
+                flushAndClear();
+            }
+        }
+        flushAndClear();
+
+        for (int from = 0; from < updates.size(); from += BATCH_SIZE) {
+            List<Airport> batch = updates.subList(from, Math.min(from + BATCH_SIZE, updates.size()));
+            Map<String, Airport> byIcao = new HashMap<>();
+            batch.forEach(a -> byIcao.put(a.getIcao(), a));
+            for (Airport managed : airportRepository.findAllById(byIcao.keySet())) {
+                copyContent(byIcao.get(managed.getIcao()), managed);
+            }
+            flushAndClear();
+        }
+
+        for (int from = 0; from < deletes.size(); from += BATCH_SIZE) {
+            airportRepository.deleteAllByIdInBatch(deletes.subList(from, Math.min(from + BATCH_SIZE, deletes.size())));
+        }
+    }
+
+    private static void readAirports(InputStream inputStream, AirportFormat format, Consumer<Airport> sink) throws IOException {
+        switch (format) {
+            case JSON -> readKeyedJson(inputStream, sink);
+            case NDJSON -> readNdjson(inputStream, sink);
+            case CSV -> new CsvAirportReader(sink).read(Channels.newChannel(inputStream));
+        }
+    }
+
+    // Walks the keyed object with a streaming parser so only one entry is in memory at a time
+    private static void readKeyedJson(InputStream inputStream, Consumer<Airport> sink) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a JSON object keyed by ICAO code.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String icao = parser.currentName();
+                parser.nextToken();
+                Airport airport = objectMapper.readValue(parser, Airport.class);
+                if (airport.getIcao() == null) {
+                    airport.setIcao(icao);
+                }
+                sink.accept(airport);
+            }
+        }
+    }
+
+    // Root level values one after the other, which is exactly one object per line for NDJSON
+    private static void readNdjson(InputStream inputStream, Consumer<Airport> sink) throws IOException {
+        try (MappingIterator<Airport> airports = new ObjectMapper().readerFor(Airport.class).readValues(inputStream)) {
+            while (airports.hasNext()) {
+                sink.accept(airports.next());
+            }
+        }
+    }
+
+    // CSV and NDJSON carry no keys to fall back on, each record is checked like a single addAirport call
+    private static Consumer<Airport> validating(Consumer<Airport> sink) {
+        long[] record = {0};
+        return airport -> {
+            record[0]++;
+            try {
+                AirportValidator.validate(airport);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Record " + record[0] + ": " + e.getMessage(), e);
+            }
+            AirportValidator.applyDefaults(airport);
+            sink.accept(airport);
+        };
+    }
+
+    @FunctionalInterface
+    private interface AirportSource {
+        void readInto(Consumer<Airport> sink) throws IOException;
+    }
+
+    // Collects parsed rows and upserts them every BATCH_SIZE rows, so nothing but the current batch is held
+    private class BatchWriter implements Consumer<Airport> {
+        private final List<Airport> batch = new ArrayList<>(BATCH_SIZE);
+        private long count;
+
+        @Override
+        public void accept(Airport airport) {
+            batch.add(airport);
+            count++;
+            if (batch.size() == BATCH_SIZE) {
+                upsertBatch(batch);
+                batch.clear();
+            }
+        }
+
+        long finish() {
+            upsertBatch(batch);
+            batch.clear();
+            return count;
+        }
+    }
+
+    // One IN select per batch tells which rows exist, those are updated in place and the rest persisted
+    private void upsertBatch(List<Airport> batch) {
+        Map<String, Airport> byIcao = new HashMap<>();
+        batch.forEach(a -> byIcao.put(a.getIcao(), a));
+        for (Airport managed : airportRepository.findAllById(byIcao.keySet())) {
+            copyContent(byIcao.remove(managed.getIcao()), managed);
+        }
+        byIcao.values().forEach(entityManager::persist);
+        flushAndClear();
+    }
+
+    // Compression of an uploaded file going by its name, like airports.json.gz from /export
+    public static String encodingFromFileName(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return name.endsWith(".gz") ? "gzip" : name.endsWith(".zst") ? "zstd" : null;
+    }
+
+    private static InputStream decompress(InputStream inputStream, String encoding) throws IOException {
+        if (encoding == null || encoding.isBlank() || "identity".equalsIgnoreCase(encoding)) {
+            return inputStream;
+        }
+        if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)) {
+            return new GZIPInputStream(inputStream, 64 * 1024);
+        }
+        if ("zstd".equalsIgnoreCase(encoding)) {
+            return new ZstdInputStream(inputStream);
+        }
+        throw new IllegalArgumentException("Unsupported Content-Encoding '" + encoding + "'. Supported: gzip, zstd, identity.");
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static Map<String, Airport> readAirports(InputStream inputStream, AirportFormat format) throws IOException {
+        Map<String, Airport> airportMap = new HashMap<>();
+        Consumer<Airport> collect = airport -> airportMap.put(airport.getIcao(), airport);
+        readAirports(inputStream, format, format == AirportFormat.JSON ? collect : validating(collect));
+        return airportMap;
+    }
+
+    // Compares the persisted columns only, region is derived and never stored
+    private static boolean sameContent(Airport a, Airport b) {
+        return Objects.equals(a.getIata(), b.getIata())
+                && Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getCity(), b.getCity())
+                && Objects.equals(a.getState(), b.getState())
+                && Objects.equals(a.getCountry(), b.getCountry())
+                && Objects.equals(a.getElevation(), b.getElevation())
+                && Objects.equals(a.getLat(), b.getLat())
+                && Objects.equals(a.getLon(), b.getLon())
+                && Objects.equals(a.getTz(), b.getTz());
+    }
+
+    private static void copyContent(Airport from, Airport to) {
+        to.setIata(from.getIata());
+        to.setName(from.getName());
+        to.setCity(from.getCity());
+        to.setState(from.getState());
+        to.setCountry(from.getCountry());
+        to.setElevation(from.getElevation());
+        to.setLat(from.getLat());
+        to.setLon(from.getLon());
+        to.setTz(from.getTz());
     }
 }
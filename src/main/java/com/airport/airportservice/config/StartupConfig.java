@@ -0,0 +1,24 @@
+package com.airport.airportservice.config;
+
+import com.airport.airportservice.index.AirportIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.sql.init.AbstractScriptDatabaseInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class StartupConfig {
+
+    // With spring.main.lazy-initialization (the fast-start profile) beans are only created on first use. These are
+    // still created at startup: the connection pool, schema scripts and Hibernate, so a broken database fails the
+    // start and not the first request of a new instance, and the AirportIndex with its listeners.
+    @Bean
+    static LazyInitializationExcludeFilter eagerPersistenceAndIndex() {
+        return LazyInitializationExcludeFilter.forBeanTypes(DataSource.class, AbstractScriptDatabaseInitializer.class,
+                EntityManagerFactory.class, AbstractEntityManagerFactoryBean.class, AirportIndex.class);
+    }
+}
@@ -0,0 +1,30 @@
+package com.airport.airportservice.config;
+
+import com.airport.airportservice.admission.AdmissionInterceptor;
+import com.airport.airportservice.admission.AdmissionProperties;
+import com.airport.airportservice.diagnostics.RequestDiagnosticsInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class WebConfig implements WebMvcConfigurer {
+
+    private final AdmissionInterceptor admissionInterceptor;
+    private final RequestDiagnosticsInterceptor requestDiagnosticsInterceptor;
+
+    @Autowired
+    public WebConfig(AdmissionInterceptor admissionInterceptor, RequestDiagnosticsInterceptor requestDiagnosticsInterceptor) {
+        this.admissionInterceptor = admissionInterceptor;
+        this.requestDiagnosticsInterceptor = requestDiagnosticsInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionInterceptor).addPathPatterns("/api/**");
+        registry.addInterceptor(requestDiagnosticsInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -1,20 +1,38 @@
 package com.airport.airportservice.controller;
 
+import com.airport.airportservice.admission.Admission;
+import com.airport.airportservice.admission.EndpointClass;
+import com.airport.airportservice.config.AirportFormat;
+import com.airport.airportservice.config.DataExporter;
 import com.airport.airportservice.config.DataLoader;
+import com.airport.airportservice.geo.DistanceMatrix;
 import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.DistanceMatrixRequest;
+import com.airport.airportservice.model.ElevationDistribution;
+import com.airport.airportservice.model.ElevationRollup;
+import com.airport.airportservice.model.FuzzyMatch;
+import com.airport.airportservice.model.SearchResults;
+import com.airport.airportservice.model.TopKResult;
 import com.airport.airportservice.service.AirportService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/airports")
@@ -23,11 +41,13 @@ public class AirportController {
 
     private final AirportService airportService;
     private final DataLoader dataLoader;
+    private final DataExporter dataExporter;
 
     @Autowired
-    public AirportController(AirportService airportService,DataLoader dataLoader) {
+    public AirportController(AirportService airportService,DataLoader dataLoader, DataExporter dataExporter) {
         this.airportService = airportService;
         this.dataLoader = dataLoader;
+        this.dataExporter = dataExporter;
     }
 
     // This is for pagination and will be used by UI in order to display data in pages of 10 by default
@@ -45,12 +65,14 @@ public class AirportController {
     }
 
     // This is for getting all Airport Data
+    @Admission(EndpointClass.SCAN)
     @GetMapping
     public List<Airport> getAllAirports(@RequestParam(required = false) String sortBy) {
         return airportService.getAllAirports(sortBy);
     }
 
     //This is for fetching Airport data by ICAO Id
+    @Admission(EndpointClass.LOOKUP)
     @GetMapping("/{icao}")
     public ResponseEntity<?> getAirportById(@PathVariable String icao) {
         // Accepting only 4 chars including digits as well without any special character and all char should be upper case
@@ -87,22 +109,80 @@ public class AirportController {
     }
 
     //This is to filter Output by name field
+    @Admission(EndpointClass.SCAN)
     @GetMapping("/filter-by-name")
     public ResponseEntity <List<Airport>> filterAirportsByName(@RequestParam String name) {
         List<Airport> filteredlist = airportService.filterByName(name);
         return ResponseEntity.ok(filteredlist);
     }
 
+    // This is to search name and city with typos allowed, e.g. "Heathro" or "Frankfort"
+    @Admission(EndpointClass.SEARCH)
+    @GetMapping("/fuzzy-search")
+    public ResponseEntity<List<FuzzyMatch>> fuzzySearch(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "2") int maxEdits,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(airportService.fuzzySearch(query, maxEdits, limit));
+    }
+
+    // This is to search airports by name, city, state, ICAO or IATA words, most relevant first
+    @Admission(EndpointClass.SEARCH)
+    @GetMapping("/search")
+    public ResponseEntity<SearchResults> search(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        return ResponseEntity.ok(airportService.search(query, page, size));
+    }
+
     //Script 1
     // This is to get the average elevation per country
+    @Admission(EndpointClass.SCAN)
     @GetMapping("/average-elevation")
     public ResponseEntity<Map<String, Double>> getAverageElevationPerCountry() {
         Map<String, Double> avgElevations = airportService.getAverageElevationPerCountry();
         return ResponseEntity.ok(avgElevations);
     }
 
+    // This is to get elevation quantiles and histogram per country or per time zone (groupBy=country|tz)
+    @GetMapping("/elevation-distribution")
+    public ResponseEntity<Map<String, ElevationDistribution>> getElevationDistribution(
+            @RequestParam(defaultValue = "country") String groupBy,
+            @RequestParam(defaultValue = "0.5,0.9,0.99") List<Double> quantiles,
+            @RequestParam(defaultValue = "10") int buckets
+    ) {
+        return ResponseEntity.ok(airportService.getElevationDistribution(groupBy, quantiles, buckets));
+    }
+
+    // This is to get airport count and min / max / average elevation grouped by any combination of country, state and
+    // tz (groupBy=country,tz) and drilled down with filters on them (groupBy=state&country=US). state is the region,
+    // "US-NY", and no groupBy gives the grand total
+    @GetMapping("/elevation-rollup")
+    public ResponseEntity<ElevationRollup> getElevationRollup(
+            @RequestParam(defaultValue = "") List<String> groupBy,
+            @RequestParam(required = false) String country,
+            @RequestParam(required = false) String state,
+            @RequestParam(required = false) String tz
+    ) {
+        Map<String, String> filters = new LinkedHashMap<>();
+        if (country != null) {
+            filters.put("country", country);
+        }
+        if (state != null) {
+            filters.put("state", state);
+        }
+        if (tz != null) {
+            filters.put("tz", tz);
+        }
+        return ResponseEntity.ok(airportService.getElevationRollup(groupBy, filters));
+    }
+
     //Script 2
     // This is to get list of data without IATA codes
+    @Admission(EndpointClass.SCAN)
     @GetMapping("/without-iata")
     public ResponseEntity<List<Airport>> getAirportsWithoutIata() {
         List<Airport> airports = airportService.getAirportsWithoutIataCode();
@@ -117,18 +197,104 @@ public class AirportController {
         return ResponseEntity.ok(topTimeZones);
     }
 
+    // This is to get the k most common values of any of tz / country / state / city, with error bounds when sketched
+    @GetMapping("/top")
+    public ResponseEntity<TopKResult> getTopValues(
+            @RequestParam(defaultValue = "tz") String field,
+            @RequestParam(defaultValue = "10") int k
+    ) {
+        return ResponseEntity.ok(airportService.getTopValues(field, k));
+    }
+
+    // This is to get pairwise distances in km between airports, one row per from and one column per to.
+    // JSON by default, Accept: application/octet-stream gives a raw float32 matrix. Rows are written as they are computed.
+    @Admission(EndpointClass.SCAN)
+    @PostMapping("/distance-matrix")
+    public void getDistanceMatrix(
+            @RequestBody DistanceMatrixRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletResponse response
+    ) throws IOException {
+        DistanceMatrix matrix = airportService.getDistanceMatrix(request);
+        response.setHeader("X-Distance-Kernel", matrix.kernel());
+        if (accept != null && accept.contains(MediaType.APPLICATION_OCTET_STREAM_VALUE)) {
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            matrix.writeBinary(response.getOutputStream());
+        } else {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            matrix.writeJson(response.getOutputStream());
+        }
+    }
+
+    // This is to download every airport as the keyed json /load-data takes, to move data between environments.
+    // Rows are streamed from the database as they are read. gzip=true gives airports.json.gz, which /load-data
+    // and /load-data/stream (with Content-Encoding: gzip) both take back.
+    @Admission(EndpointClass.SCAN)
+    @GetMapping("/export")
+    public void exportAirports(@RequestParam(defaultValue = "false") boolean gzip, HttpServletResponse response)
+            throws IOException {
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(gzip ? "airports.json.gz" : "airports.json").build().toString());
+        if (gzip) {
+            response.setContentType("application/gzip");
+            GZIPOutputStream out = new GZIPOutputStream(response.getOutputStream(), 64 * 1024);
+            dataExporter.export(out);
+            out.finish();
+        } else {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            dataExporter.export(response.getOutputStream());
+        }
+    }
+
     //This is to load data from user end by taking json as input from User.
+    // Files named .gz or .zst are decompressed first. mode=diff treats the file as the full dataset and only writes the rows that changed, returning the counts
+    @Admission(EndpointClass.SCAN)
     @PostMapping("/load-data")
-    public ResponseEntity<String> manuallyLoadAirportData(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> manuallyLoadAirportData(@RequestParam("file") MultipartFile file,
+                                                     @RequestParam(defaultValue = "full") String mode,
+                                                     @RequestParam(required = false) String format) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body("File is empty.");
         }
+        if (!"full".equals(mode) && !"diff".equals(mode)) {
+            return ResponseEntity.badRequest().body("Mode must be either 'full' or 'diff'.");
+        }
 
         try (InputStream inputStream = file.getInputStream()) {
-            dataLoader.loadAirportDataFromInputStream(inputStream);
+            AirportFormat airportFormat = format != null
+                    ? AirportFormat.fromName(format)
+                    : AirportFormat.fromFileName(file.getOriginalFilename());
+            String encoding = DataLoader.encodingFromFileName(file.getOriginalFilename());
+            if ("diff".equals(mode)) {
+                return ResponseEntity.ok(dataLoader.diffLoadAirportDataFromInputStream(inputStream, encoding, airportFormat));
+            }
+            dataLoader.loadAirportDataFromInputStream(inputStream, encoding, airportFormat);
             return ResponseEntity.ok("Airport data loaded successfully.");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error loading data: " + e.getMessage());
         }
     }
+
+    // This is to load the same json sent as the raw request body instead of a multipart file, up to
+    // airport.load.max-upload-bytes. The body is received in full before the load takes any lock, so single-row
+    // writes only wait for the load itself. It can be compressed, set Content-Encoding to gzip or zstd.
+    // CSV and NDJSON bodies are picked from Content-Type (text/csv, application/x-ndjson) or the format param.
+    @Admission(EndpointClass.SCAN)
+    @PostMapping("/load-data/stream")
+    public ResponseEntity<String> streamAirportData(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String encoding,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            @RequestParam(required = false) String format
+    ) {
+        try {
+            AirportFormat airportFormat = format != null
+                    ? AirportFormat.fromName(format)
+                    : AirportFormat.fromContentType(contentType);
+            long loaded = dataLoader.loadAirportDataFromUpload(body, encoding, airportFormat);
+            return ResponseEntity.ok("Airport data loaded successfully. Rows: " + loaded);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Error loading data: " + e.getMessage());
+        }
+    }
 }
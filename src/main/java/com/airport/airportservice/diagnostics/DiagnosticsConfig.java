@@ -0,0 +1,28 @@
+package com.airport.airportservice.diagnostics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(DiagnosticsProperties.class)
+public class DiagnosticsConfig {
+
+    // Hooks PersistenceDiagnostics into the session factory. Hibernate Statistics can be on without the hooks and the
+    // other way round, both only take effect at startup.
+    @Bean
+    public HibernatePropertiesCustomizer persistenceDiagnosticsCustomizer(DiagnosticsProperties properties,
+                                                                         PersistenceDiagnostics diagnostics) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, properties.isHibernateStatistics());
+            if (properties.isEnabled()) {
+                DiagnosticsSessionListener.bind(diagnostics);
+                hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementInspector(diagnostics));
+                hibernateProperties.put(AvailableSettings.INTERCEPTOR, new EntityLoadInterceptor(diagnostics));
+                hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, DiagnosticsSessionListener.class.getName());
+            }
+        };
+    }
+}
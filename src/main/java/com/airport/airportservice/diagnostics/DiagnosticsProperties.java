@@ -0,0 +1,20 @@
+package com.airport.airportservice.diagnostics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "airport.diagnostics")
+public class DiagnosticsProperties {
+
+    // Turns the Hibernate hooks and the per-request counting on, read once when the session factory is built
+    private boolean enabled = true;
+    // Hibernate's own Statistics (query counts and times per JPQL query, entity counters)
+    private boolean hibernateStatistics = true;
+    // Statement executions and batches taking at least this long are logged and kept in the slow query log
+    private long slowQueryMs = 100;
+    // The same SELECT run this many times in one request is reported as a likely N+1
+    private int repeatedSelectThreshold = 10;
+    // Entries kept for each of the slow query, N+1 and recent request logs, oldest are dropped first
+    private int logSize = 100;
+}
@@ -0,0 +1,46 @@
+package com.airport.airportservice.diagnostics;
+
+import org.hibernate.SessionEventListener;
+
+// Times JDBC executions and batches. Hibernate creates one of these per session from the class name, so it can't be
+// a Spring bean and finds the PersistenceDiagnostics through a static set when the session factory is configured.
+public class DiagnosticsSessionListener implements SessionEventListener {
+
+    private static volatile PersistenceDiagnostics diagnostics;
+
+    static void bind(PersistenceDiagnostics persistenceDiagnostics) {
+        diagnostics = persistenceDiagnostics;
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        PersistenceDiagnostics target = diagnostics;
+        if (target != null) {
+            target.executionStarted();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        PersistenceDiagnostics target = diagnostics;
+        if (target != null) {
+            target.executionEnded(false);
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        PersistenceDiagnostics target = diagnostics;
+        if (target != null) {
+            target.executionStarted();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        PersistenceDiagnostics target = diagnostics;
+        if (target != null) {
+            target.executionEnded(true);
+        }
+    }
+}
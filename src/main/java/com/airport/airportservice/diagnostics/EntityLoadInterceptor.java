@@ -0,0 +1,20 @@
+package com.airport.airportservice.diagnostics;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+// One call per entity hydrated from a result set, whatever query or lookup caused it
+class EntityLoadInterceptor implements Interceptor {
+
+    private final transient PersistenceDiagnostics diagnostics;
+
+    EntityLoadInterceptor(PersistenceDiagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        diagnostics.entityLoaded();
+        return false;
+    }
+}
@@ -0,0 +1,231 @@
+package com.airport.airportservice.diagnostics;
+
+import com.airport.airportservice.model.PersistenceReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Collects what Hibernate does on behalf of each web request: statements prepared, JDBC batches, entities hydrated
+// and time spent in the driver. The Hibernate hooks (SqlStatementInspector, DiagnosticsSessionListener,
+// EntityLoadInterceptor) report here on the thread running the session, which is the request thread since nothing
+// in the app hands a session to another thread. Work outside a request, like the startup load, only shows up in
+// the slow statement log.
+@Component
+public class PersistenceDiagnostics {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistenceDiagnostics.class);
+
+    // IN lists of different lengths are the same query for N+1 purposes
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final DiagnosticsProperties properties;
+    private final ThreadLocal<RequestStats> currentRequest = new ThreadLocal<>();
+    private final ThreadLocal<Execution> currentExecution = ThreadLocal.withInitial(Execution::new);
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final RecentLog<PersistenceReport.RequestCounts> recentRequests;
+    private final RecentLog<PersistenceReport.SlowStatement> slowStatements;
+    private final RecentLog<PersistenceReport.RepeatedSelect> repeatedSelects;
+
+    @Autowired
+    public PersistenceDiagnostics(DiagnosticsProperties properties) {
+        this.properties = properties;
+        this.recentRequests = new RecentLog<>(properties.getLogSize());
+        this.slowStatements = new RecentLog<>(properties.getLogSize());
+        this.repeatedSelects = new RecentLog<>(properties.getLogSize());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    void requestStarted(String endpoint) {
+        currentRequest.set(new RequestStats(endpoint));
+    }
+
+    void requestEnded() {
+        RequestStats request = currentRequest.get();
+        if (request == null) {
+            return;
+        }
+        currentRequest.remove();
+
+        int suspects = 0;
+        for (Map.Entry<String, Integer> shape : request.selects.entrySet()) {
+            if (shape.getValue() >= properties.getRepeatedSelectThreshold()) {
+                suspects++;
+                repeatedSelects.add(new PersistenceReport.RepeatedSelect(Instant.now(), request.endpoint,
+                        shape.getKey(), shape.getValue()));
+                log.warn("Possible N+1 on {}: same select ran {} times: {}", request.endpoint, shape.getValue(), shape.getKey());
+            }
+        }
+        endpoints.computeIfAbsent(request.endpoint, e -> new EndpointStats()).add(request, suspects);
+        recentRequests.add(new PersistenceReport.RequestCounts(Instant.now(), request.endpoint, request.statements,
+                request.batches, request.entities, toMillis(request.sqlNanos)));
+    }
+
+    void statementPrepared(String sql) {
+        currentExecution.get().sql = sql;
+        RequestStats request = currentRequest.get();
+        if (request != null) {
+            request.statements++;
+            if (isSelect(sql)) {
+                request.selects.merge(shape(sql), 1, Integer::sum);
+            }
+        }
+    }
+
+    void executionStarted() {
+        currentExecution.get().startedAt = System.nanoTime();
+    }
+
+    void executionEnded(boolean batch) {
+        Execution execution = currentExecution.get();
+        long elapsed = System.nanoTime() - execution.startedAt;
+        RequestStats request = currentRequest.get();
+        if (request != null) {
+            request.sqlNanos += elapsed;
+            if (batch) {
+                request.batches++;
+            }
+        }
+        if (elapsed >= TimeUnit.MILLISECONDS.toNanos(properties.getSlowQueryMs())) {
+            String endpoint = request == null ? null : request.endpoint;
+            slowStatements.add(new PersistenceReport.SlowStatement(Instant.now(), endpoint, execution.sql,
+                    toMillis(elapsed), batch));
+            log.warn("Slow {} ({} ms) on {}: {}", batch ? "batch" : "statement", toMillis(elapsed),
+                    endpoint == null ? "no request" : endpoint, execution.sql);
+        }
+    }
+
+    void entityLoaded() {
+        RequestStats request = currentRequest.get();
+        if (request != null) {
+            request.entities++;
+        }
+    }
+
+    public Map<String, PersistenceReport.EndpointTotals> endpointTotals() {
+        Map<String, PersistenceReport.EndpointTotals> totals = new TreeMap<>();
+        endpoints.forEach((endpoint, stats) -> totals.put(endpoint, stats.toTotals()));
+        return totals;
+    }
+
+    public List<PersistenceReport.RequestCounts> recentRequests() {
+        return recentRequests.list();
+    }
+
+    public List<PersistenceReport.SlowStatement> slowStatements() {
+        return slowStatements.list();
+    }
+
+    public List<PersistenceReport.RepeatedSelect> suspectedNPlusOne() {
+        return repeatedSelects.list();
+    }
+
+    public void reset() {
+        endpoints.clear();
+        recentRequests.clear();
+        slowStatements.clear();
+        repeatedSelects.clear();
+    }
+
+    private static boolean isSelect(String sql) {
+        return sql.stripLeading().regionMatches(true, 0, "select", 0, 6);
+    }
+
+    static String shape(String sql) {
+        return IN_LIST.matcher(WHITESPACE.matcher(sql.trim()).replaceAll(" ")).replaceAll("(?...)").toLowerCase(Locale.ROOT);
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    // Only ever touched by the thread serving the request
+    private static final class RequestStats {
+        private final String endpoint;
+        private final Map<String, Integer> selects = new HashMap<>();
+        private int statements;
+        private int batches;
+        private int entities;
+        private long sqlNanos;
+
+        private RequestStats(String endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    private static final class Execution {
+        private String sql;
+        private long startedAt;
+    }
+
+    private static final class EndpointStats {
+        private long requests;
+        private long statements;
+        private long maxStatements;
+        private long batches;
+        private long entities;
+        private long maxEntities;
+        private long sqlNanos;
+        private long suspects;
+
+        private synchronized void add(RequestStats request, int requestSuspects) {
+            requests++;
+            statements += request.statements;
+            maxStatements = Math.max(maxStatements, request.statements);
+            batches += request.batches;
+            entities += request.entities;
+            maxEntities = Math.max(maxEntities, request.entities);
+            sqlNanos += request.sqlNanos;
+            suspects += requestSuspects;
+        }
+
+        private synchronized PersistenceReport.EndpointTotals toTotals() {
+            return new PersistenceReport.EndpointTotals(requests, statements, maxStatements, batches, entities,
+                    maxEntities, toMillis(sqlNanos), suspects);
+        }
+    }
+
+    // Keeps the last few entries, newest first when listed
+    private static final class RecentLog<T> {
+        private final int capacity;
+        private final ArrayDeque<T> entries = new ArrayDeque<>();
+
+        private RecentLog(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private synchronized void add(T entry) {
+            if (capacity <= 0) {
+                return;
+            }
+            if (entries.size() == capacity) {
+                entries.removeLast();
+            }
+            entries.addFirst(entry);
+        }
+
+        private synchronized List<T> list() {
+            return new ArrayList<>(entries);
+        }
+
+        private synchronized void clear() {
+            entries.clear();
+        }
+    }
+}
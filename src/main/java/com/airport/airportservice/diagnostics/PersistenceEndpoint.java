@@ -0,0 +1,71 @@
+package com.airport.airportservice.diagnostics;
+
+import com.airport.airportservice.model.PersistenceReport;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// GET /actuator/persistence returns the report. It lists SQL text, so it is read-only and not exposed by default,
+// see application.properties for exposing it on a management port of its own.
+@Component
+@Endpoint(id = "persistence")
+public class PersistenceEndpoint {
+
+    private static final int TOP_QUERIES = 20;
+
+    private final PersistenceDiagnostics diagnostics;
+    private final DiagnosticsProperties properties;
+    private final Statistics statistics;
+
+    @Autowired
+    public PersistenceEndpoint(PersistenceDiagnostics diagnostics, DiagnosticsProperties properties,
+                               EntityManagerFactory entityManagerFactory) {
+        this.diagnostics = diagnostics;
+        this.properties = properties;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public PersistenceReport report() {
+        PersistenceReport.HibernateTotals hibernate = null;
+        List<PersistenceReport.QueryTiming> queries = List.of();
+        if (statistics.isStatisticsEnabled()) {
+            hibernate = new PersistenceReport.HibernateTotals(
+                    statistics.getQueryExecutionCount(),
+                    statistics.getQueryExecutionMaxTime(),
+                    statistics.getQueryExecutionMaxTimeQueryString(),
+                    statistics.getPrepareStatementCount(),
+                    statistics.getEntityLoadCount(),
+                    statistics.getEntityFetchCount(),
+                    statistics.getEntityInsertCount(),
+                    statistics.getEntityUpdateCount(),
+                    statistics.getEntityDeleteCount(),
+                    statistics.getFlushCount(),
+                    statistics.getSessionOpenCount(),
+                    statistics.getTransactionCount());
+            queries = Arrays.stream(statistics.getQueries())
+                    .map(this::queryTiming)
+                    .sorted(Comparator.comparingLong(PersistenceReport.QueryTiming::getTotalTimeMs).reversed())
+                    .limit(TOP_QUERIES)
+                    .toList();
+        }
+        return new PersistenceReport(properties.isEnabled(), properties.getSlowQueryMs(),
+                properties.getRepeatedSelectThreshold(), hibernate, queries, diagnostics.endpointTotals(),
+                diagnostics.recentRequests(), diagnostics.slowStatements(), diagnostics.suspectedNPlusOne());
+    }
+
+    private PersistenceReport.QueryTiming queryTiming(String query) {
+        QueryStatistics stats = statistics.getQueryStatistics(query);
+        return new PersistenceReport.QueryTiming(query, stats.getExecutionCount(), stats.getExecutionRowCount(),
+                stats.getExecutionTotalTime(), stats.getExecutionMaxTime());
+    }
+}
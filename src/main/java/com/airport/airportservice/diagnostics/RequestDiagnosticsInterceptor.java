@@ -0,0 +1,36 @@
+package com.airport.airportservice.diagnostics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Opens and closes the per-request counters in PersistenceDiagnostics. Requests are grouped by their mapping
+// pattern, so /api/airports/{icao} is one endpoint and not one per ICAO.
+@Component
+public class RequestDiagnosticsInterceptor implements HandlerInterceptor {
+
+    private final PersistenceDiagnostics diagnostics;
+
+    @Autowired
+    public RequestDiagnosticsInterceptor(PersistenceDiagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (diagnostics.isEnabled() && handler instanceof HandlerMethod) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            diagnostics.requestStarted(request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        diagnostics.requestEnded();
+    }
+}
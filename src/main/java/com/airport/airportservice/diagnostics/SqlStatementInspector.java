@@ -0,0 +1,19 @@
+package com.airport.airportservice.diagnostics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Sees every SQL string Hibernate is about to prepare, including native queries. The SQL is passed on unchanged.
+class SqlStatementInspector implements StatementInspector {
+
+    private final transient PersistenceDiagnostics diagnostics;
+
+    SqlStatementInspector(PersistenceDiagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        diagnostics.statementPrepared(sql);
+        return sql;
+    }
+}
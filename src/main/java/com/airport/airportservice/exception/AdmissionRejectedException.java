@@ -0,0 +1,18 @@
+package com.airport.airportservice.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+// Thrown by admission control before the handler runs, 429 when a client is over its rate and 503 when the pool is full
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(HttpStatus status, long retryAfterSeconds, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -1,5 +1,6 @@
 package com.airport.airportservice.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -20,6 +21,17 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(error);
     }
 
+    // Admission control rejections keep their own status (429 or 503) and tell the client when to come back
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleAdmissionRejected(AdmissionRejectedException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", ex.getStatus() == HttpStatus.TOO_MANY_REQUESTS ? "TooManyRequests" : "ServiceUnavailable");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
     // This will catch all exception apart from the above one and will remove internal details like stack trace and all.
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGenericException(Exception ex) {
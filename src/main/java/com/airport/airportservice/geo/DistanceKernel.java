@@ -0,0 +1,28 @@
+package com.airport.airportservice.geo;
+
+// Computes one row of a distance matrix: the great-circle distance in km from one unit vector to every point.
+// Both implementations use the chord between the two vectors, d = 2R * asin(|a - b| / 2), which stays accurate
+// for nearby points where the dot product form loses precision. Past 90 degrees asin gets ill-conditioned, so there
+// they use d = 2R * (pi/2 - asin(|a + b| / 2)) instead: always the smaller of the two half chords goes into asin.
+interface DistanceKernel {
+
+    double EARTH_DIAMETER_KM = 2 * 6371.0088;
+
+    void row(float x, float y, float z, UnitVectors.Points to, float[] out);
+
+    String name();
+
+    // VectorDistanceKernel is only in builds made with -Pvector-api, and the incubator module only present when the
+    // JVM runs with --add-modules jdk.incubator.vector. Without both the scalar kernel is used.
+    static DistanceKernel best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (DistanceKernel) Class.forName(DistanceKernel.class.getPackageName() + ".VectorDistanceKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                // built without the vector-api profile
+            }
+        }
+        return new ScalarDistanceKernel();
+    }
+}
@@ -0,0 +1,163 @@
+package com.airport.airportservice.geo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Pairwise great-circle distances between two lists of airports. Nothing is computed up front, each row is
+// computed into one reusable buffer while it is written, so memory stays at one row whatever the matrix size.
+public class DistanceMatrix {
+
+    public static final int MAX_CELLS = 4_000_000;
+
+    private final List<String> from;
+    private final List<String> to;
+    private final UnitVectors.Points fromPoints;
+    private final UnitVectors.Points toPoints;
+    private final DistanceKernel kernel;
+
+    DistanceMatrix(List<String> from, List<String> to, UnitVectors.Points fromPoints, UnitVectors.Points toPoints,
+                   DistanceKernel kernel) {
+        this.from = from;
+        this.to = to;
+        this.fromPoints = fromPoints;
+        this.toPoints = toPoints;
+        this.kernel = kernel;
+    }
+
+    public int rows() {
+        return from.size();
+    }
+
+    public int columns() {
+        return to.size();
+    }
+
+    public String kernel() {
+        return kernel.name();
+    }
+
+    // Row i is the distances from from[i] to every airport in to, in km
+    public void computeRow(int i, float[] out) {
+        kernel.row(fromPoints.x[i], fromPoints.y[i], fromPoints.z[i], toPoints, out);
+    }
+
+    // {"unit":"km","from":[...],"to":[...],"distances":[[...],...]}, distances rounded to 0.1 km,
+    // null when one of the two airports has no coordinates
+    public void writeJson(OutputStream out) throws IOException {
+        JsonRowWriter writer = new JsonRowWriter(out);
+        writer.ascii("{\"unit\":\"km\",\"from\":");
+        writer.strings(from);
+        writer.ascii(",\"to\":");
+        writer.strings(to);
+        writer.ascii(",\"distances\":[");
+        float[] row = new float[columns()];
+        for (int i = 0; i < rows(); i++) {
+            computeRow(i, row);
+            writer.ascii(i == 0 ? "[" : ",[");
+            for (int j = 0; j < row.length; j++) {
+                if (j > 0) {
+                    writer.ascii(",");
+                }
+                writer.tenths(row[j]);
+            }
+            writer.ascii("]");
+        }
+        writer.ascii("]}");
+        writer.flush();
+    }
+
+    // Two big-endian int32 (rows, columns) followed by rows * columns big-endian float32 in row-major order, km
+    public void writeBinary(OutputStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(8, columns() * Float.BYTES));
+        buffer.putInt(rows()).putInt(columns());
+        out.write(buffer.array(), 0, 8);
+        float[] row = new float[columns()];
+        for (int i = 0; i < rows(); i++) {
+            computeRow(i, row);
+            buffer.clear();
+            buffer.asFloatBuffer().put(row);
+            out.write(buffer.array(), 0, row.length * Float.BYTES);
+        }
+        out.flush();
+    }
+
+    // Writes ASCII straight into a byte buffer, Float.toString and a JSON library would dominate the time
+    private static final class JsonRowWriter {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[1 << 16];
+        private int length;
+
+        JsonRowWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void ascii(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) {
+                put((byte) s.charAt(i));
+            }
+        }
+
+        // Codes are ones found in the index, quotes and backslashes are the only characters to escape there
+        void strings(List<String> values) throws IOException {
+            put((byte) '[');
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    put((byte) ',');
+                }
+                put((byte) '"');
+                for (byte b : values.get(i).getBytes(StandardCharsets.UTF_8)) {
+                    if (b == '"' || b == '\\') {
+                        put((byte) '\\');
+                    }
+                    put(b);
+                }
+                put((byte) '"');
+            }
+            put((byte) ']');
+        }
+
+        void tenths(float km) throws IOException {
+            if (Float.isNaN(km)) {
+                ascii("null");
+                return;
+            }
+            long tenths = Math.round(km * 10.0);
+            long whole = tenths / 10;
+            if (whole >= 10000) {
+                put((byte) ('0' + whole / 10000 % 10));
+            }
+            if (whole >= 1000) {
+                put((byte) ('0' + whole / 1000 % 10));
+            }
+            if (whole >= 100) {
+                put((byte) ('0' + whole / 100 % 10));
+            }
+            if (whole >= 10) {
+                put((byte) ('0' + whole / 10 % 10));
+            }
+            put((byte) ('0' + whole % 10));
+            put((byte) '.');
+            put((byte) ('0' + tenths % 10));
+        }
+
+        private void put(byte b) throws IOException {
+            if (length == buffer.length) {
+                flushBuffer();
+            }
+            buffer[length++] = b;
+        }
+
+        private void flushBuffer() throws IOException {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+
+        void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+    }
+}
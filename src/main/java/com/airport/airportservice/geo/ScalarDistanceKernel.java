@@ -0,0 +1,43 @@
+package com.airport.airportservice.geo;
+
+// Plain loop fallback. Math.asin is not intrinsified and was most of the time spent, so it uses the
+// Abramowitz-Stegun 4.4.46 polynomial instead (error below 2e-8 rad, about 0.1 m on the earth's surface).
+class ScalarDistanceKernel implements DistanceKernel {
+
+    @Override
+    public void row(float x, float y, float z, UnitVectors.Points to, float[] out) {
+        float[] xs = to.x;
+        float[] ys = to.y;
+        float[] zs = to.z;
+        for (int j = 0; j < out.length; j++) {
+            double dx = x - xs[j];
+            double dy = y - ys[j];
+            double dz = z - zs[j];
+            double sx = x + xs[j];
+            double sy = y + ys[j];
+            double sz = z + zs[j];
+            double near = Math.sqrt(dx * dx + dy * dy + dz * dz) * 0.5;
+            double far = Math.sqrt(sx * sx + sy * sy + sz * sz) * 0.5;
+            double halfAngle = near <= far ? asin(near) : Math.PI / 2 - asin(Math.min(1.0, far));
+            out[j] = (float) (EARTH_DIAMETER_KM * halfAngle);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    // Valid for 0 <= v <= 1, which is all a half chord can be
+    static double asin(double v) {
+        double p = -0.0012624911;
+        p = p * v + 0.0066700901;
+        p = p * v - 0.0170881256;
+        p = p * v + 0.0308918810;
+        p = p * v - 0.0501743046;
+        p = p * v + 0.0889789874;
+        p = p * v - 0.2145988016;
+        p = p * v + 1.5707963050;
+        return Math.PI / 2 - Math.sqrt(1 - v) * p;
+    }
+}
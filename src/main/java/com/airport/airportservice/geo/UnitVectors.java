@@ -0,0 +1,139 @@
+package com.airport.airportservice.geo;
+
+import com.airport.airportservice.index.AirportIndexListener;
+import com.airport.airportservice.model.Airport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Every airport position as a unit vector on the sphere, kept in three parallel float arrays (x, y, z) so the
+// distance kernels read plain primitive arrays. Kept up to date from the AirportIndex, airports without
+// coordinates get NaN and end up as null distances.
+@Component
+public class UnitVectors implements AirportIndexListener {
+
+    private static final Logger log = LoggerFactory.getLogger(UnitVectors.class);
+
+    private final DistanceKernel kernel = DistanceKernel.best();
+    private final Map<String, Integer> slotByIcao = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private float[] x = new float[0];
+    private float[] y = new float[0];
+    private float[] z = new float[0];
+    private int size;
+
+    public UnitVectors() {
+        log.info("Distance matrix kernel: {}", kernel.name());
+    }
+
+    @Override
+    public synchronized void onReload(List<Airport> airports) {
+        slotByIcao.clear();
+        freeSlots.clear();
+        x = new float[airports.size()];
+        y = new float[airports.size()];
+        z = new float[airports.size()];
+        size = 0;
+        for (Airport airport : airports) {
+            onAdd(airport);
+        }
+    }
+
+    @Override
+    public synchronized void onAdd(Airport airport) {
+        Integer slot = slotByIcao.get(airport.getIcao());
+        if (slot == null) {
+            slot = freeSlots.isEmpty() ? size++ : freeSlots.pop();
+            if (slot == x.length) {
+                int capacity = Math.max(16, x.length * 2);
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                z = Arrays.copyOf(z, capacity);
+            }
+            slotByIcao.put(airport.getIcao(), slot);
+        }
+        set(slot, airport.getLat(), airport.getLon());
+    }
+
+    @Override
+    public synchronized void onRemove(Airport airport) {
+        Integer slot = slotByIcao.remove(airport.getIcao());
+        if (slot != null) {
+            freeSlots.push(slot);
+        }
+    }
+
+    public DistanceMatrix matrix(List<String> from, List<String> to) {
+        Points fromPoints;
+        Points toPoints;
+        synchronized (this) {
+            fromPoints = gather(from);
+            toPoints = to == from ? fromPoints : gather(to);
+        }
+        return new DistanceMatrix(from, to, fromPoints, toPoints, kernel);
+    }
+
+    public String kernelName() {
+        return kernel.name();
+    }
+
+    // Copies the requested airports into contiguous arrays, in request order, so the matrix is computed
+    // without holding this lock. Unknown codes are reported all at once.
+    public synchronized Points gather(List<String> icaos) {
+        Points points = new Points(icaos.size());
+        List<String> unknown = new ArrayList<>();
+        for (int i = 0; i < icaos.size(); i++) {
+            Integer slot = slotByIcao.get(icaos.get(i));
+            if (slot == null) {
+                unknown.add(icaos.get(i));
+                continue;
+            }
+            points.x[i] = x[slot];
+            points.y[i] = y[slot];
+            points.z[i] = z[slot];
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown ICAO codes: "
+                    + String.join(", ", unknown.subList(0, Math.min(20, unknown.size())))
+                    + (unknown.size() > 20 ? " and " + (unknown.size() - 20) + " more." : "."));
+        }
+        return points;
+    }
+
+    private void set(int slot, Double lat, Double lon) {
+        if (lat == null || lon == null) {
+            x[slot] = y[slot] = z[slot] = Float.NaN;
+            return;
+        }
+        double phi = Math.toRadians(lat);
+        double lambda = Math.toRadians(lon);
+        x[slot] = (float) (Math.cos(phi) * Math.cos(lambda));
+        y[slot] = (float) (Math.cos(phi) * Math.sin(lambda));
+        z[slot] = (float) Math.sin(phi);
+    }
+
+    // Unit vectors of a list of airports, struct of arrays
+    public static final class Points {
+        final float[] x;
+        final float[] y;
+        final float[] z;
+
+        Points(int size) {
+            x = new float[size];
+            y = new float[size];
+            z = new float[size];
+        }
+
+        public int size() {
+            return x.length;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.airport.airportservice.geo;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Same formula as ScalarDistanceKernel on the widest float vectors the CPU has (16 lanes with AVX-512).
+// Only compiled with -Pvector-api and only loaded through DistanceKernel.best() when the incubator module is there.
+class VectorDistanceKernel implements DistanceKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final float DIAMETER = (float) EARTH_DIAMETER_KM;
+    private static final float HALF_PI = (float) (Math.PI / 2);
+
+    @Override
+    public void row(float x, float y, float z, UnitVectors.Points to, float[] out) {
+        float[] xs = to.x;
+        float[] ys = to.y;
+        float[] zs = to.z;
+        int j = 0;
+        for (int bound = SPECIES.loopBound(out.length); j < bound; j += SPECIES.length()) {
+            FloatVector bx = FloatVector.fromArray(SPECIES, xs, j);
+            FloatVector by = FloatVector.fromArray(SPECIES, ys, j);
+            FloatVector bz = FloatVector.fromArray(SPECIES, zs, j);
+            FloatVector dx = bx.sub(x);
+            FloatVector dy = by.sub(y);
+            FloatVector dz = bz.sub(z);
+            FloatVector sx = bx.add(x);
+            FloatVector sy = by.add(y);
+            FloatVector sz = bz.add(z);
+            FloatVector near = dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz)).sqrt().mul(0.5f);
+            FloatVector far = sx.mul(sx).add(sy.mul(sy)).add(sz.mul(sz)).sqrt().mul(0.5f);
+            FloatVector angle = near.min(far).min(1f).lanewise(VectorOperators.ASIN);
+            angle.blend(angle.neg().add(HALF_PI), near.compare(VectorOperators.GT, far))
+                    .mul(DIAMETER)
+                    .intoArray(out, j);
+        }
+        // The tail is shorter than one vector, plain Math.asin is fine for those few lanes
+        for (; j < out.length; j++) {
+            double dx = x - xs[j];
+            double dy = y - ys[j];
+            double dz = z - zs[j];
+            double sx = x + xs[j];
+            double sy = y + ys[j];
+            double sz = z + zs[j];
+            double near = Math.sqrt(dx * dx + dy * dy + dz * dz) * 0.5;
+            double far = Math.sqrt(sx * sx + sy * sy + sz * sz) * 0.5;
+            double halfAngle = near <= far ? Math.asin(near) : Math.PI / 2 - Math.asin(Math.min(1.0, far));
+            out[j] = (float) (EARTH_DIAMETER_KM * halfAngle);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+}
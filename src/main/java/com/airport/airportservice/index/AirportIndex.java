@@ -0,0 +1,218 @@
+package com.airport.airportservice.index;
+
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.repository.AirportRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory read model of the airport table. The current state is an immutable AirportSnapshot published through
+// an atomic reference: readers take the reference and work on it without any lock, writers build the next snapshot
+// and swap it in. It is loaded lazily from the repository on first read, patched copy-on-write on add/delete
+// and rebuilt after ingestion.
+@Component
+public class AirportIndex {
+
+    // Only these fields can be used for sorting, same as what getAllAirports allows
+    public static final List<String> SORT_FIELDS = List.of("name", "city", "state", "country");
+
+    private static final int INCREMENTAL_BATCH_LIMIT = 16;
+
+    private final AirportRepository airportRepository;
+    private final List<AirportIndexListener> listeners;
+    // Serializes writers so listeners see changes in the same order as the snapshots, readers never take it
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private final AtomicReference<AirportSnapshot> current = new AtomicReference<>();
+    private final AtomicLong version = new AtomicLong();
+
+    @Autowired
+    public AirportIndex(AirportRepository airportRepository, List<AirportIndexListener> listeners) {
+        this.airportRepository = airportRepository;
+        this.listeners = listeners;
+    }
+
+    public static boolean isSortable(String field) {
+        return SORT_FIELDS.contains(field);
+    }
+
+    // Changes on every write and reload, results computed from an older version may be stale
+    public long version() {
+        return version.get();
+    }
+
+    // The current snapshot, everything read from one snapshot is consistent with everything else in it
+    public AirportSnapshot snapshot() {
+        AirportSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            ensureLoaded();
+            snapshot = current.get();
+        }
+        return snapshot;
+    }
+
+    // This returns every airport in the order they were loaded into the index
+    public List<Airport> all() {
+        return snapshot().all();
+    }
+
+    public List<Airport> sorted(String field) {
+        checkSortable(field);
+        return snapshot().sorted(field);
+    }
+
+    public Page<Airport> page(int page, int size, String field) {
+        checkSortable(field);
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(field));
+        AirportSnapshot snapshot = snapshot();
+        int from = (int) Math.min(pageRequest.getOffset(), snapshot.size());
+        // size comes from the request, only what is left after the offset is ever read
+        int to = from + Math.min(size, snapshot.size() - from);
+        return new PageImpl<>(snapshot.sorted(field, from, to), pageRequest, snapshot.size());
+    }
+
+    // Called after a row has been saved, replaces the old row if the ICAO is already indexed.
+    // Before the first load there is nothing to patch, the load reads the committed row from the table.
+    public void add(Airport airport) {
+        publishLock.lock();
+        try {
+            long next = version.incrementAndGet();
+            AirportSnapshot snapshot = current.get();
+            if (snapshot == null) {
+                return;
+            }
+            Airport existing = snapshot.get(airport.getIcao());
+            current.set(snapshot.with(airport, next));
+            for (AirportIndexListener listener : listeners) {
+                if (existing != null) {
+                    listener.onRemove(existing);
+                }
+                listener.onAdd(airport);
+            }
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    public void remove(String icao) {
+        publishLock.lock();
+        try {
+            long next = version.incrementAndGet();
+            AirportSnapshot snapshot = current.get();
+            if (snapshot == null) {
+                return;
+            }
+            Airport existing = snapshot.get(icao);
+            current.set(snapshot.without(icao, next));
+            if (existing != null) {
+                for (AirportIndexListener listener : listeners) {
+                    listener.onRemove(existing);
+                }
+            }
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    // Publishes a batch of upserts and deletes as one snapshot. Each single-row copy costs O(n), so past a few rows
+    // the next snapshot is built from scratch out of the current rows, still without going back to the table.
+    public void apply(List<Airport> upserts, List<String> removals) {
+        publishLock.lock();
+        try {
+            long next = version.incrementAndGet();
+            AirportSnapshot snapshot = current.get();
+            if (snapshot == null) {
+                return;
+            }
+            List<Airport> removed = new ArrayList<>();
+            AirportSnapshot result;
+            if (upserts.size() + removals.size() <= INCREMENTAL_BATCH_LIMIT) {
+                result = snapshot;
+                for (Airport airport : upserts) {
+                    Airport existing = result.get(airport.getIcao());
+                    if (existing != null) {
+                        removed.add(existing);
+                    }
+                    result = result.with(airport, next);
+                }
+                for (String icao : removals) {
+                    Airport existing = result.get(icao);
+                    if (existing != null) {
+                        removed.add(existing);
+                    }
+                    result = result.without(icao, next);
+                }
+            } else {
+                Map<String, Airport> rows = new LinkedHashMap<>();
+                for (Airport airport : snapshot.all()) {
+                    rows.put(airport.getIcao(), airport);
+                }
+                for (Airport airport : upserts) {
+                    Airport existing = rows.put(airport.getIcao(), airport);
+                    if (existing != null) {
+                        removed.add(existing);
+                    }
+                }
+                for (String icao : removals) {
+                    Airport existing = rows.remove(icao);
+                    if (existing != null) {
+                        removed.add(existing);
+                    }
+                }
+                result = AirportSnapshot.of(new ArrayList<>(rows.values()), next);
+            }
+            current.set(result);
+            for (AirportIndexListener listener : listeners) {
+                removed.forEach(listener::onRemove);
+                upserts.forEach(listener::onAdd);
+            }
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    // Rebuilds everything from the table, used after a bulk ingestion
+    public void reload() {
+        publishLock.lock();
+        try {
+            List<Airport> airports = airportRepository.findAll();
+            long next = version.incrementAndGet();
+            current.set(AirportSnapshot.of(airports, next));
+            for (AirportIndexListener listener : listeners) {
+                listener.onReload(airports);
+            }
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    // Listeners only hold data once the index is loaded, so readers of those structures call this first
+    public void ensureLoaded() {
+        if (current.get() == null) {
+            publishLock.lock();
+            try {
+                if (current.get() == null) {
+                    reload();
+                }
+            } finally {
+                publishLock.unlock();
+            }
+        }
+    }
+
+    private static void checkSortable(String field) {
+        if (!isSortable(field)) {
+            throw new IllegalArgumentException("Sorting by '" + field + "' is not allowed. Allowed fields: name, city, state, country.");
+        }
+    }
+}
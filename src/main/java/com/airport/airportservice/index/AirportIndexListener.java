@@ -0,0 +1,17 @@
+package com.airport.airportservice.index;
+
+import com.airport.airportservice.model.Airport;
+
+import java.util.List;
+
+// Anything that derives its own structure from the airport rows (sketches, counters, search indexes)
+// implements this and gets every change the AirportIndex publishes, in publication order.
+public interface AirportIndexListener {
+
+    // Full dataset after a load or bulk ingestion, previous state should be dropped
+    void onReload(List<Airport> airports);
+
+    void onAdd(Airport airport);
+
+    void onRemove(Airport airport);
+}
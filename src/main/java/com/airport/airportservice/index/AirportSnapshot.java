@@ -0,0 +1,279 @@
+package com.airport.airportservice.index;
+
+import com.airport.airportservice.model.Airport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+// Immutable view of the whole airport table at one version: the rows in load order, the same rows sorted by ICAO
+// (the lookup map, searched by binary search) and by every sortable field, plus the per-country elevation sums.
+// Nothing in here is ever modified after construction, so any number of readers can use it without locking.
+// Single-row changes build the next snapshot by copying the arrays around the changed position, a bulk load
+// builds a new one from scratch.
+public final class AirportSnapshot {
+
+    private static final Comparator<Airport> BY_ICAO = Comparator.comparing(Airport::getIcao);
+
+    // Null values come first, which is the same order H2 gives for ascending sorts. Ties are broken by ICAO
+    // which makes the order total and lets a row be found again by binary search.
+    private static final Map<String, Comparator<Airport>> SORT_ORDERS = new LinkedHashMap<>();
+
+    static {
+        SORT_ORDERS.put("name", sortOn(Airport::getName));
+        SORT_ORDERS.put("city", sortOn(Airport::getCity));
+        SORT_ORDERS.put("state", sortOn(Airport::getState));
+        SORT_ORDERS.put("country", sortOn(Airport::getCountry));
+    }
+
+    private final long version;
+    private final Airport[] rows;
+    private final String[] upperNames;
+    private final Airport[] byIcao;
+    private final Map<String, Airport[]> sorted;
+    private final Map<String, ElevationSum> elevationByCountry;
+
+    private AirportSnapshot(long version, Airport[] rows, String[] upperNames, Airport[] byIcao,
+                            Map<String, Airport[]> sorted, Map<String, ElevationSum> elevationByCountry) {
+        this.version = version;
+        this.rows = rows;
+        this.upperNames = upperNames;
+        this.byIcao = byIcao;
+        this.sorted = sorted;
+        this.elevationByCountry = elevationByCountry;
+    }
+
+    // Full build, one sort per field instead of n binary insertions
+    static AirportSnapshot of(List<Airport> airports, long version) {
+        Airport[] rows = airports.toArray(new Airport[0]);
+        String[] upperNames = new String[rows.length];
+        Map<String, ElevationSum> elevationByCountry = new HashMap<>();
+        for (int i = 0; i < rows.length; i++) {
+            upperNames[i] = upper(rows[i].getName());
+            addElevation(elevationByCountry, rows[i]);
+        }
+
+        Airport[] byIcao = rows.clone();
+        Arrays.sort(byIcao, BY_ICAO);
+        Map<String, Airport[]> sorted = new HashMap<>();
+        SORT_ORDERS.forEach((field, comparator) -> {
+            Airport[] order = rows.clone();
+            Arrays.sort(order, comparator);
+            sorted.put(field, order);
+        });
+        return new AirportSnapshot(version, rows, upperNames, byIcao, sorted, elevationByCountry);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    public Airport get(String icao) {
+        int pos = searchIcao(byIcao, icao);
+        return pos >= 0 ? byIcao[pos] : null;
+    }
+
+    // Every airport in the order they were loaded. The list is a read-only view, nothing is copied.
+    public List<Airport> all() {
+        return Collections.unmodifiableList(Arrays.asList(rows));
+    }
+
+    public List<Airport> sorted(String field) {
+        return Collections.unmodifiableList(Arrays.asList(sortedArray(field)));
+    }
+
+    public List<Airport> sorted(String field, int from, int to) {
+        Airport[] order = sortedArray(field);
+        int start = Math.min(from, order.length);
+        return Collections.unmodifiableList(Arrays.asList(order).subList(start, Math.max(start, Math.min(to, order.length))));
+    }
+
+    // Case-insensitive substring match on the name, like findByNameContainingIgnoreCase, over upper-cased
+    // names computed once per row
+    public List<Airport> filterByName(String fragment) {
+        String needle = upper(fragment);
+        List<Airport> result = new ArrayList<>();
+        for (int i = 0; i < rows.length; i++) {
+            if (upperNames[i] != null && upperNames[i].contains(needle)) {
+                result.add(rows[i]);
+            }
+        }
+        return result;
+    }
+
+    // Airports without a country or elevation are left out
+    public Map<String, Double> averageElevationByCountry() {
+        Map<String, Double> averages = new HashMap<>();
+        elevationByCountry.forEach((country, sum) -> averages.put(country, (double) sum.total / sum.count));
+        return averages;
+    }
+
+    // Upsert: a replaced row keeps its load position, a new one goes to the end
+    AirportSnapshot with(Airport airport, long nextVersion) {
+        Airport existing = get(airport.getIcao());
+        Airport[] nextRows;
+        String[] nextUpperNames;
+        if (existing == null) {
+            nextRows = Arrays.copyOf(rows, rows.length + 1);
+            nextUpperNames = Arrays.copyOf(upperNames, upperNames.length + 1);
+            nextRows[rows.length] = airport;
+            nextUpperNames[rows.length] = upper(airport.getName());
+        } else {
+            int pos = positionInRows(existing);
+            nextRows = rows.clone();
+            nextUpperNames = upperNames.clone();
+            nextRows[pos] = airport;
+            nextUpperNames[pos] = upper(airport.getName());
+        }
+
+        Map<String, Airport[]> nextSorted = new HashMap<>();
+        SORT_ORDERS.forEach((field, comparator) -> nextSorted.put(field,
+                insert(existing == null ? sorted.get(field) : remove(sorted.get(field), existing, comparator), airport, comparator)));
+        Airport[] nextByIcao = insert(existing == null ? byIcao : remove(byIcao, existing, BY_ICAO), airport, BY_ICAO);
+
+        Map<String, ElevationSum> nextElevation = new HashMap<>(elevationByCountry);
+        if (existing != null) {
+            removeElevation(nextElevation, existing);
+        }
+        addElevation(nextElevation, airport);
+        return new AirportSnapshot(nextVersion, nextRows, nextUpperNames, nextByIcao, nextSorted, nextElevation);
+    }
+
+    AirportSnapshot without(String icao, long nextVersion) {
+        Airport existing = get(icao);
+        if (existing == null) {
+            return new AirportSnapshot(nextVersion, rows, upperNames, byIcao, sorted, elevationByCountry);
+        }
+        int pos = positionInRows(existing);
+        Airport[] nextRows = new Airport[rows.length - 1];
+        String[] nextUpperNames = new String[rows.length - 1];
+        System.arraycopy(rows, 0, nextRows, 0, pos);
+        System.arraycopy(rows, pos + 1, nextRows, pos, rows.length - pos - 1);
+        System.arraycopy(upperNames, 0, nextUpperNames, 0, pos);
+        System.arraycopy(upperNames, pos + 1, nextUpperNames, pos, rows.length - pos - 1);
+
+        Map<String, Airport[]> nextSorted = new HashMap<>();
+        SORT_ORDERS.forEach((field, comparator) -> nextSorted.put(field, remove(sorted.get(field), existing, comparator)));
+
+        Map<String, ElevationSum> nextElevation = new HashMap<>(elevationByCountry);
+        removeElevation(nextElevation, existing);
+        return new AirportSnapshot(nextVersion, nextRows, nextUpperNames, remove(byIcao, existing, BY_ICAO),
+                nextSorted, nextElevation);
+    }
+
+    private Airport[] sortedArray(String field) {
+        Airport[] order = sorted.get(field);
+        if (order == null) {
+            throw new IllegalArgumentException("Sorting by '" + field + "' is not allowed. Allowed fields: name, city, state, country.");
+        }
+        return order;
+    }
+
+    // Rows are in load order so this is a scan, it is the same O(n) as the copies around it
+    private int positionInRows(Airport airport) {
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] == airport) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("ICAO '" + airport.getIcao() + "' is in the lookup but not in the rows.");
+    }
+
+    private static Airport[] insert(Airport[] order, Airport airport, Comparator<Airport> comparator) {
+        int pos = Arrays.binarySearch(order, airport, comparator);
+        if (pos >= 0) {
+            throw new IllegalStateException("ICAO '" + airport.getIcao() + "' is already indexed.");
+        }
+        pos = -(pos + 1);
+        Airport[] next = new Airport[order.length + 1];
+        System.arraycopy(order, 0, next, 0, pos);
+        next[pos] = airport;
+        System.arraycopy(order, pos, next, pos + 1, order.length - pos);
+        return next;
+    }
+
+    // The airport passed in must be the instance stored in this snapshot, otherwise the search cannot find it
+    private static Airport[] remove(Airport[] order, Airport airport, Comparator<Airport> comparator) {
+        int pos = Arrays.binarySearch(order, airport, comparator);
+        if (pos < 0) {
+            return order;
+        }
+        Airport[] next = new Airport[order.length - 1];
+        System.arraycopy(order, 0, next, 0, pos);
+        System.arraycopy(order, pos + 1, next, pos, order.length - pos - 1);
+        return next;
+    }
+
+    private static int searchIcao(Airport[] byIcao, String icao) {
+        int low = 0;
+        int high = byIcao.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = byIcao[mid].getIcao().compareTo(icao);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    // Sums of a published snapshot are shared with the next one, so changes always put a new ElevationSum in the map
+    private static void addElevation(Map<String, ElevationSum> sums, Airport airport) {
+        if (hasElevation(airport)) {
+            sums.merge(airport.getCountry(), new ElevationSum(airport.getElevation(), 1), ElevationSum::plus);
+        }
+    }
+
+    private static void removeElevation(Map<String, ElevationSum> sums, Airport airport) {
+        if (hasElevation(airport)) {
+            ElevationSum next = sums.get(airport.getCountry()).plus(new ElevationSum(-airport.getElevation(), -1));
+            if (next.count == 0) {
+                sums.remove(airport.getCountry());
+            } else {
+                sums.put(airport.getCountry(), next);
+            }
+        }
+    }
+
+    private static boolean hasElevation(Airport airport) {
+        return airport.getCountry() != null && !airport.getCountry().isEmpty() && airport.getElevation() != null;
+    }
+
+    private static String upper(String value) {
+        return value == null ? null : value.toUpperCase(Locale.ROOT);
+    }
+
+    private static Comparator<Airport> sortOn(Function<Airport, String> field) {
+        return Comparator.comparing(field, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                .thenComparing(Airport::getIcao);
+    }
+
+    private static final class ElevationSum {
+        private final long total;
+        private final int count;
+
+        private ElevationSum(long total, int count) {
+            this.total = total;
+            this.count = count;
+        }
+
+        private ElevationSum plus(ElevationSum other) {
+            return new ElevationSum(total + other.total, count + other.count);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.airport.airportservice.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Orders writes per ICAO: a single-row write holds the stripe of its code from the DB statement until the
+// in-memory index has been patched, so two writers of the same airport can't apply to the index in a different
+// order than they hit the table. Writers of different codes run their DB statements in parallel but still meet in
+// the index's publish lock, which copies the snapshot arrays and runs the listeners, so that part stays serialized.
+// Bulk loads take every stripe.
+@Component
+public class IcaoLocks {
+
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    public IcaoLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(String icao, Supplier<T> action) {
+        ReentrantLock stripe = stripes[stripe(icao)];
+        stripe.lock();
+        try {
+            return action.get();
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    // Always taken in index order, so two bulk writers can't deadlock each other
+    public <T> T withAllLocks(Supplier<T> action) {
+        int locked = 0;
+        try {
+            for (; locked < STRIPES; locked++) {
+                stripes[locked].lock();
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    private static int stripe(String icao) {
+        int h = icao == null ? 0 : icao.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
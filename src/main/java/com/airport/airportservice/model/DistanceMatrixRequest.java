@@ -0,0 +1,18 @@
+package com.airport.airportservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DistanceMatrixRequest {
+
+    // ICAO codes of the matrix rows
+    private List<String> from;
+    // ICAO codes of the matrix columns, the same as from when left out
+    private List<String> to;
+}
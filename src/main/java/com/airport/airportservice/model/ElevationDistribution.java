@@ -0,0 +1,30 @@
+package com.airport.airportservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ElevationDistribution {
+
+    private long count;
+    private double min;
+    private double max;
+    // keyed like "p50", "p90", "p99"
+    private Map<String, Double> quantiles;
+    private List<HistogramBucket> histogram;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HistogramBucket {
+        private double from;
+        private double to;
+        private long count;
+    }
+}
@@ -0,0 +1,35 @@
+package com.airport.airportservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ElevationRollup {
+
+    private List<String> groupBy;
+    // Drill-down filters that were applied, e.g. {"country": "US"}
+    private Map<String, String> filters;
+    // Airports matching the filters, the sum of the row counts
+    private long count;
+    private List<Row> rows;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        // One value per groupBy field in the same order, empty for the grand total
+        private Map<String, String> group;
+        private long count;
+        // Airports in the group that have an elevation, min / max / average are over these and null when there are none
+        private long elevationCount;
+        private Integer minElevation;
+        private Integer maxElevation;
+        private Double averageElevation;
+    }
+}
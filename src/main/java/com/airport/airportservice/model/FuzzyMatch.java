@@ -0,0 +1,19 @@
+package com.airport.airportservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FuzzyMatch {
+
+    private Airport airport;
+    // Edits summed over every word of the query, 0 is an exact match
+    private int edits;
+    // Words of the name or city that matched the query, upper-cased and without accents
+    private List<String> terms;
+}
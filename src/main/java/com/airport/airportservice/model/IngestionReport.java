@@ -0,0 +1,17 @@
+package com.airport.airportservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionReport {
+
+    private long inserted;
+    private long updated;
+    private long deleted;
+    private long unchanged;
+    private long durationMs;
+}
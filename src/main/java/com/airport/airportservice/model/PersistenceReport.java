@@ -0,0 +1,106 @@
+package com.airport.airportservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PersistenceReport {
+
+    private boolean enabled;
+    private long slowQueryMs;
+    private int repeatedSelectThreshold;
+    // Null when airport.diagnostics.hibernate-statistics is off
+    private HibernateTotals hibernate;
+    // JPQL and native queries by total time spent, slowest first
+    private List<QueryTiming> queries;
+    // Keyed by "METHOD /path/pattern"
+    private Map<String, EndpointTotals> endpoints;
+    private List<RequestCounts> recentRequests;
+    private List<SlowStatement> slowStatements;
+    private List<RepeatedSelect> suspectedNPlusOne;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HibernateTotals {
+        private long queryExecutionCount;
+        private long queryExecutionMaxTimeMs;
+        private String queryExecutionMaxTimeQuery;
+        private long prepareStatementCount;
+        private long entityLoadCount;
+        private long entityFetchCount;
+        private long entityInsertCount;
+        private long entityUpdateCount;
+        private long entityDeleteCount;
+        private long flushCount;
+        private long sessionOpenCount;
+        private long transactionCount;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class QueryTiming {
+        private String query;
+        private long executionCount;
+        private long rowCount;
+        private long totalTimeMs;
+        private long maxTimeMs;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EndpointTotals {
+        private long requests;
+        private long statements;
+        private long maxStatements;
+        // JDBC batch executions, 0 for a write endpoint means every row went out as its own statement
+        private long batches;
+        private long entitiesLoaded;
+        private long maxEntitiesLoaded;
+        private double sqlTimeMs;
+        private long suspectedNPlusOne;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RequestCounts {
+        private Instant at;
+        private String endpoint;
+        private int statements;
+        private int batches;
+        private int entitiesLoaded;
+        private double sqlTimeMs;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SlowStatement {
+        private Instant at;
+        // Null for work outside a web request, like the startup load
+        private String endpoint;
+        private String sql;
+        private double timeMs;
+        private boolean batch;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RepeatedSelect {
+        private Instant at;
+        private String endpoint;
+        private String sql;
+        private int executions;
+    }
+}
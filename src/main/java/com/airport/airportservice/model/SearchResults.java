@@ -0,0 +1,30 @@
+package com.airport.airportservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResults {
+
+    private String query;
+    private int page;
+    private int size;
+    // Airports matching at least one word. When totalHitsExact is false this is a lower bound: the ranking skipped
+    // airports that could no longer make it into the requested page, like Lucene's "more than" hit counts.
+    private long totalHits;
+    private boolean totalHitsExact;
+    private List<Hit> hits;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Hit {
+        private Airport airport;
+        private double score;
+    }
+}
@@ -0,0 +1,33 @@
+package com.airport.airportservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopKResult {
+
+    private String field;
+    private int k;
+    // "exact" when every distinct value is counted, "sketch" when counts come from Space-Saving
+    private String mode;
+    private long total;
+    // Upper bound on how much any reported count can be over the real one, 0 in exact mode
+    private long errorBound;
+    private List<Entry> entries;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String value;
+        private long count;
+        private long maxError;
+        // True when the value is in the top k whatever the real counts are within the error bounds
+        private boolean guaranteed;
+    }
+}
@@ -1,12 +1,46 @@
 package com.airport.airportservice.repository;
 
 import com.airport.airportservice.model.Airport;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AirportRepository extends JpaRepository<Airport, String> {
     List<Airport> findByNameContainingIgnoreCase(String name);
+
+    // One INSERT statement, returns 0 when the ICAO already exists. Two concurrent inserts of a new ICAO can both pass
+    // the NOT EXISTS, the primary key then fails the second one with DataIntegrityViolationException.
+    // save() would merge instead, which is a SELECT first and silently overwrites.
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO airport (icao, iata, name, city, state, country, elevation, lat, lon, tz) "
+            + "SELECT :#{#a.icao}, :#{#a.iata}, :#{#a.name}, :#{#a.city}, :#{#a.state}, :#{#a.country}, "
+            + ":#{#a.elevation}, :#{#a.lat}, :#{#a.lon}, :#{#a.tz} "
+            + "WHERE NOT EXISTS (SELECT 1 FROM airport WHERE icao = :#{#a.icao})", nativeQuery = true)
+    int insertAirport(@Param("a") Airport airport);
+
+    // Returns the number of rows deleted, 0 when there was no such airport
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Airport a WHERE a.icao = :icao")
+    int deleteByIcao(@Param("icao") String icao);
+
+    // Every row in ICAO order through a forward-only cursor, fetched 500 at a time. Only works inside a transaction
+    // and the stream must be closed, rows stay in the persistence context until the caller detaches them.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM Airport a ORDER BY a.icao")
+    Stream<Airport> streamAllByIcao();
 }
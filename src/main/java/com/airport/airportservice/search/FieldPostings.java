@@ -0,0 +1,101 @@
+package com.airport.airportservice.search;
+
+import java.util.Arrays;
+
+// Growable int array of posting entries for FullTextIndex, slot << 8 | how often the term is in each field.
+// Entries are only appended and slots only grow, so a list stays sorted by slot. Also keeps the number of live
+// airports with the term, its document frequency, which goes down when an airport is removed, and what it takes to
+// bound the score of the term: the low bytes of all entries or-ed together, which is at least the highest count per
+// field, and the shortest name, city and state it was added with. Removals leave those as they are, still a bound.
+final class FieldPostings {
+
+    static final int SLOT_SHIFT = 8;
+    // Low byte: count in name, city and state (2 bits each, capped at 3), then one bit each for ICAO and IATA
+    static final int MAX_TF = 3;
+    static final int CITY_SHIFT = 2;
+    static final int STATE_SHIFT = 4;
+    static final int ICAO_BIT = 1 << 6;
+    static final int IATA_BIT = 1 << 7;
+
+    private int[] entries = new int[2];
+    private int size;
+    private int live;
+    private int fields;
+    private int shortestName = Integer.MAX_VALUE;
+    private int shortestCity = Integer.MAX_VALUE;
+    private int shortestState = Integer.MAX_VALUE;
+
+    void add(int entry, int nameLength, int cityLength, int stateLength) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        entries[size++] = entry;
+        live++;
+        fields |= entry & ((1 << SLOT_SHIFT) - 1);
+        if ((entry & MAX_TF) != 0) {
+            shortestName = Math.min(shortestName, nameLength);
+        }
+        if (((entry >>> CITY_SHIFT) & MAX_TF) != 0) {
+            shortestCity = Math.min(shortestCity, cityLength);
+        }
+        if (((entry >>> STATE_SHIFT) & MAX_TF) != 0) {
+            shortestState = Math.min(shortestState, stateLength);
+        }
+    }
+
+    void removed() {
+        live--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int live() {
+        return live;
+    }
+
+    int fields() {
+        return fields;
+    }
+
+    int shortestName() {
+        return shortestName;
+    }
+
+    int shortestCity() {
+        return shortestCity;
+    }
+
+    int shortestState() {
+        return shortestState;
+    }
+
+    int get(int i) {
+        return entries[i];
+    }
+
+    int slot(int i) {
+        return entries[i] >>> SLOT_SHIFT;
+    }
+
+    // First position at or after from whose slot is at least the given one, galloping like Postings.seek
+    int seek(int slot, int from) {
+        int low = from;
+        int step = 1;
+        while (low + step < size && entries[low + step] >>> SLOT_SHIFT < slot) {
+            low += step;
+            step <<= 1;
+        }
+        int high = Math.min(size, low + step + 1);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid] >>> SLOT_SHIFT < slot) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
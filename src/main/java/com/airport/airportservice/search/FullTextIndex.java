@@ -0,0 +1,493 @@
+package com.airport.airportservice.search;
+
+import com.airport.airportservice.index.AirportIndexListener;
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.SearchResults;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Ranked search over the words of name, city and state and the ICAO and IATA codes. Every term has a posting list
+// of the slots of the airports that have it, with how often it is in each of their fields, and results are scored
+// with BM25F: the counts are weighted per field and normalized by the length of the field before the usual BM25
+// saturation, so a word in a two word city counts for more than the same word in a long name. On top of that an
+// airport whose whole city or name is the query words gets a bonus and one with an IATA code (scheduled service) a small
+// boost, which is what puts JFK ahead of a strip in New York Mills for "new york". Slots work like in
+// FuzzySearchIndex, and the index is kept up to date from the AirportIndex.
+@Component
+public class FullTextIndex implements AirportIndexListener {
+
+    public static final int MAX_PAGE_SIZE = 100;
+    // Deepest ranked result a page can reach, (page + 1) * size
+    public static final int MAX_WINDOW = 1000;
+    public static final int MAX_WORDS = 32;
+
+    static final double K1 = 1.2;
+    // Weight of each field, and length normalization of the ones that have more than one word
+    private static final double NAME_WEIGHT = 1.0;
+    private static final double CITY_WEIGHT = 1.0;
+    private static final double STATE_WEIGHT = 0.5;
+    private static final double CODE_WEIGHT = 2.0;
+    private static final double NAME_B = 0.75;
+    private static final double CITY_B = 0.5;
+    private static final double STATE_B = 0.3;
+    // Times the summed idf of the query words, added when they are exactly the words of the city or the name
+    static final double EXACT_FIELD_BONUS = 0.5;
+    static final double IATA_BOOST = 1.1;
+
+    private static final int MAX_TF = FieldPostings.MAX_TF;
+    private static final int CITY_SHIFT = FieldPostings.CITY_SHIFT;
+    private static final int STATE_SHIFT = FieldPostings.STATE_SHIFT;
+    private static final int ICAO_BIT = FieldPostings.ICAO_BIT;
+    private static final int IATA_BIT = FieldPostings.IATA_BIT;
+    private static final int MAX_SLOTS = 1 << (31 - FieldPostings.SLOT_SHIFT);
+    private static final int MIN_DEAD_FOR_COMPACTION = 1024;
+    private static final int WHOLE_NAME = 1;
+    private static final int WHOLE_CITY = 2;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, FieldPostings> postings = new HashMap<>();
+    private final Map<String, Integer> slotByIcao = new HashMap<>();
+    private Airport[] airports = new Airport[0];
+    // Words in name, city and state of each slot, capped at 255, and their sums over the live airports
+    private byte[] nameLength = new byte[0];
+    private byte[] cityLength = new byte[0];
+    private byte[] stateLength = new byte[0];
+    // Read for every candidate, kept here so ranking does not have to go through the airport
+    private boolean[] hasIata = new boolean[0];
+    private long nameTotal;
+    private long cityTotal;
+    private long stateTotal;
+    private int size;
+    private int dead;
+
+    @Override
+    public void onReload(List<Airport> rows) {
+        lock.writeLock().lock();
+        try {
+            rebuild(rows);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onAdd(Airport airport) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotByIcao.get(airport.getIcao());
+            if (existing != null) {
+                kill(existing);
+            }
+            index(airport);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onRemove(Airport airport) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByIcao.remove(airport.getIcao());
+            if (slot != null) {
+                kill(slot);
+                if (dead > MIN_DEAD_FOR_COMPACTION && dead * 2 > size) {
+                    List<Airport> live = new ArrayList<>(size - dead);
+                    for (int i = 0; i < size; i++) {
+                        if (airports[i] != null) {
+                            live.add(airports[i]);
+                        }
+                    }
+                    rebuild(live);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // One page of the airports having any of the query words, best score first and load order between equal scores
+    public SearchResults search(String query, int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("page must not be negative.");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        if (((long) page + 1) * size > MAX_WINDOW) {
+            throw new IllegalArgumentException("Only the first " + MAX_WINDOW + " results can be paged through.");
+        }
+        List<String> words = Tokenizer.tokens(query);
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException("Search text must contain at least one letter or digit.");
+        }
+        LinkedHashSet<String> distinct = new LinkedHashSet<>(words);
+        if (distinct.size() > MAX_WORDS) {
+            throw new IllegalArgumentException("Search text can have at most " + MAX_WORDS + " words.");
+        }
+
+        lock.readLock().lock();
+        try {
+            Ranking ranking = new Ranking(words, distinct, (page + 1) * size);
+            ranking.run();
+            List<SearchResults.Hit> hits = new ArrayList<>(size);
+            Integer[] ranked = ranking.top.ranked();
+            for (int i = page * size; i < Math.min(ranked.length, (page + 1) * size); i++) {
+                int at = ranked[i];
+                hits.add(new SearchResults.Hit(airports[ranking.top.slots[at]], ranking.top.scores[at]));
+            }
+            long totalHits = ranking.terms.size() == 1 ? ranking.terms.get(0).list.live() : ranking.visited;
+            boolean exact = ranking.terms.size() == 1 || !ranking.pruned;
+            return new SearchResults(query, page, size, totalHits, exact, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void rebuild(List<Airport> rows) {
+        postings.clear();
+        slotByIcao.clear();
+        int capacity = Math.max(16, rows.size());
+        airports = new Airport[capacity];
+        nameLength = new byte[capacity];
+        cityLength = new byte[capacity];
+        stateLength = new byte[capacity];
+        hasIata = new boolean[capacity];
+        nameTotal = cityTotal = stateTotal = 0;
+        size = 0;
+        dead = 0;
+        for (Airport airport : rows) {
+            index(airport);
+        }
+    }
+
+    private void index(Airport airport) {
+        if (size == MAX_SLOTS) {
+            throw new IllegalStateException("The full text index holds at most " + MAX_SLOTS + " airports.");
+        }
+        if (size == airports.length) {
+            airports = Arrays.copyOf(airports, size * 2);
+            nameLength = Arrays.copyOf(nameLength, size * 2);
+            cityLength = Arrays.copyOf(cityLength, size * 2);
+            stateLength = Arrays.copyOf(stateLength, size * 2);
+            hasIata = Arrays.copyOf(hasIata, size * 2);
+        }
+        int slot = size++;
+        airports[slot] = airport;
+        slotByIcao.put(airport.getIcao(), slot);
+
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        nameLength[slot] = (byte) count(terms, airport.getName(), 0);
+        cityLength[slot] = (byte) count(terms, airport.getCity(), CITY_SHIFT);
+        stateLength[slot] = (byte) count(terms, airport.getState(), STATE_SHIFT);
+        nameTotal += lengthOf(nameLength, slot);
+        cityTotal += lengthOf(cityLength, slot);
+        stateTotal += lengthOf(stateLength, slot);
+        hasIata[slot] = airport.getIata() != null && !airport.getIata().isBlank();
+        for (String code : Tokenizer.tokens(airport.getIcao())) {
+            terms.merge(code, ICAO_BIT, (bits, bit) -> bits | bit);
+        }
+        for (String code : Tokenizer.tokens(airport.getIata())) {
+            terms.merge(code, IATA_BIT, (bits, bit) -> bits | bit);
+        }
+        terms.forEach((term, fields) -> postings.computeIfAbsent(term, t -> new FieldPostings())
+                .add(slot << FieldPostings.SLOT_SHIFT | fields, lengthOf(nameLength, slot), lengthOf(cityLength, slot),
+                        lengthOf(stateLength, slot)));
+    }
+
+    // Adds the words of one text field to terms and returns how many there were, capped at 255
+    private static int count(Map<String, Integer> terms, String text, int shift) {
+        List<String> tokens = Tokenizer.tokens(text);
+        for (String token : tokens) {
+            terms.merge(token, 1 << shift, (bits, one) -> ((bits >>> shift) & MAX_TF) == MAX_TF ? bits : bits + one);
+        }
+        return Math.min(tokens.size(), 255);
+    }
+
+    private static int lengthOf(byte[] lengths, int slot) {
+        return lengths[slot] & 0xFF;
+    }
+
+    private void kill(int slot) {
+        Airport airport = airports[slot];
+        List<String> terms = new ArrayList<>(Tokenizer.tokens(airport.getName()));
+        terms.addAll(Tokenizer.tokens(airport.getCity()));
+        terms.addAll(Tokenizer.tokens(airport.getState()));
+        terms.addAll(Tokenizer.tokens(airport.getIcao()));
+        terms.addAll(Tokenizer.tokens(airport.getIata()));
+        for (String term : new LinkedHashSet<>(terms)) {
+            postings.get(term).removed();
+        }
+        nameTotal -= lengthOf(nameLength, slot);
+        cityTotal -= lengthOf(cityLength, slot);
+        stateTotal -= lengthOf(stateLength, slot);
+        airports[slot] = null;
+        dead++;
+    }
+
+    // One query word that is in the index, with its idf and the highest score it can add to an airport
+    private static final class Term {
+        private final FieldPostings list;
+        private final double idf;
+        // Times the word is in the query, capped like the counts in the postings
+        private final int queryCount;
+        private double maxScore;
+        private int position;
+
+        private Term(FieldPostings list, int liveAirports, int queryCount) {
+            this.list = list;
+            this.queryCount = Math.min(queryCount, MAX_TF);
+            this.idf = Math.log(1 + (liveAirports - list.live() + 0.5) / (list.live() + 0.5));
+        }
+    }
+
+    // Document at a time walk over the posting lists of the query words in slot order, with MaxScore pruning: words
+    // are ordered by the most they can add, and once the best results found so far all score more than the airports
+    // having only the weakest words could, those words stop producing candidates and are only looked up for
+    // airports found through the others. Slots only go up during the walk, so a later airport scoring the same as
+    // the worst kept result ranks below it and can be skipped as well.
+    private final class Ranking {
+        private final int wordCount;
+        private final List<Term> terms = new ArrayList<>();
+        private final TopHits top;
+        private final double bonus;
+        private final double avgName;
+        private final double avgCity;
+        private final double avgState;
+        private long visited;
+        private boolean pruned;
+
+        private Ranking(List<String> words, LinkedHashSet<String> distinct, int k) {
+            this.wordCount = words.size();
+            this.top = new TopHits(k);
+            int liveAirports = size - dead;
+            double idfSum = 0;
+            boolean allKnown = true;
+            for (String word : distinct) {
+                FieldPostings list = postings.get(word);
+                if (list == null || list.live() == 0) {
+                    allKnown = false;
+                    continue;
+                }
+                Term term = new Term(list, liveAirports, Collections.frequency(words, word));
+                terms.add(term);
+                idfSum += term.idf;
+            }
+            this.bonus = allKnown ? EXACT_FIELD_BONUS * idfSum : 0;
+            this.avgName = Math.max(1, (double) nameTotal / Math.max(1, liveAirports));
+            this.avgCity = Math.max(1, (double) cityTotal / Math.max(1, liveAirports));
+            this.avgState = Math.max(1, (double) stateTotal / Math.max(1, liveAirports));
+            for (Term term : terms) {
+                term.maxScore = maxScore(term);
+            }
+            terms.sort(Comparator.comparingDouble(term -> term.maxScore));
+        }
+
+        // Scores the highest count the term has in each field as if it came with the shortest length it was seen with
+        private double maxScore(Term term) {
+            FieldPostings list = term.list;
+            int fields = list.fields();
+            double tf = field(fields & MAX_TF, NAME_WEIGHT, NAME_B, list.shortestName(), avgName)
+                    + field((fields >>> CITY_SHIFT) & MAX_TF, CITY_WEIGHT, CITY_B, list.shortestCity(), avgCity)
+                    + field((fields >>> STATE_SHIFT) & MAX_TF, STATE_WEIGHT, STATE_B, list.shortestState(), avgState)
+                    + ((fields & ICAO_BIT) != 0 ? CODE_WEIGHT : 0)
+                    + ((fields & IATA_BIT) != 0 ? CODE_WEIGHT : 0);
+            return saturate(term.idf, tf);
+        }
+
+        private void run() {
+            int n = terms.size();
+            // upTo[i] is the most the first i words together can add
+            double[] upTo = new double[n + 1];
+            for (int i = 0; i < n; i++) {
+                upTo[i + 1] = upTo[i] + terms.get(i).maxScore;
+            }
+            int essential = 0;
+            candidates:
+            while (true) {
+                while (essential < n && top.isFull()
+                        && (upTo[essential + 1] + (essential + 1 == n ? bonus : 0)) * IATA_BOOST <= top.threshold()) {
+                    essential++;
+                    pruned = true;
+                }
+                int slot = Integer.MAX_VALUE;
+                for (int i = essential; i < n; i++) {
+                    Term term = terms.get(i);
+                    if (term.position < term.list.size()) {
+                        slot = Math.min(slot, term.list.slot(term.position));
+                    }
+                }
+                if (slot == Integer.MAX_VALUE) {
+                    return;
+                }
+
+                double score = 0;
+                int matched = 0;
+                int whole = WHOLE_NAME | WHOLE_CITY;
+                for (int i = essential; i < n; i++) {
+                    Term term = terms.get(i);
+                    if (term.position < term.list.size() && term.list.slot(term.position) == slot) {
+                        int entry = term.list.get(term.position++);
+                        score += score(term, entry);
+                        whole &= sameCount(term, entry);
+                        matched++;
+                    }
+                }
+                Airport airport = airports[slot];
+                if (airport == null) {
+                    continue;
+                }
+                visited++;
+                for (int i = essential - 1; i >= 0; i--) {
+                    double best = score + upTo[i + 1] + (matched + i + 1 == n ? bonus : 0);
+                    if (top.isFull() && best * IATA_BOOST <= top.threshold()) {
+                        continue candidates;
+                    }
+                    Term term = terms.get(i);
+                    term.position = term.list.seek(slot, term.position);
+                    if (term.position < term.list.size() && term.list.slot(term.position) == slot) {
+                        int entry = term.list.get(term.position);
+                        score += score(term, entry);
+                        whole &= sameCount(term, entry);
+                        matched++;
+                    }
+                }
+                if (matched == n && bonus > 0 && isWholeField(slot, whole)) {
+                    score += bonus;
+                }
+                if (hasIata[slot]) {
+                    score *= IATA_BOOST;
+                }
+                top.offer(score, slot);
+            }
+        }
+
+        // Which of name and city have the term as many times as the query does
+        private static int sameCount(Term term, int entry) {
+            return ((entry & MAX_TF) == term.queryCount ? WHOLE_NAME : 0)
+                    | (((entry >>> CITY_SHIFT) & MAX_TF) == term.queryCount ? WHOLE_CITY : 0);
+        }
+
+        // Every query word the right number of times and no other words, in any order
+        private boolean isWholeField(int slot, int whole) {
+            return ((whole & WHOLE_CITY) != 0 && lengthOf(cityLength, slot) == wordCount)
+                    || ((whole & WHOLE_NAME) != 0 && lengthOf(nameLength, slot) == wordCount);
+        }
+
+        private double score(Term term, int entry) {
+            int slot = entry >>> FieldPostings.SLOT_SHIFT;
+            double tf = 0;
+            tf += field(entry & MAX_TF, NAME_WEIGHT, NAME_B, lengthOf(nameLength, slot), avgName);
+            tf += field((entry >>> CITY_SHIFT) & MAX_TF, CITY_WEIGHT, CITY_B, lengthOf(cityLength, slot), avgCity);
+            tf += field((entry >>> STATE_SHIFT) & MAX_TF, STATE_WEIGHT, STATE_B, lengthOf(stateLength, slot), avgState);
+            if ((entry & ICAO_BIT) != 0) {
+                tf += CODE_WEIGHT;
+            }
+            if ((entry & IATA_BIT) != 0) {
+                tf += CODE_WEIGHT;
+            }
+            return saturate(term.idf, tf);
+        }
+
+        private static double saturate(double idf, double tf) {
+            return idf * tf * (K1 + 1) / (K1 + tf);
+        }
+
+        private static double field(int tf, double weight, double b, int length, double average) {
+            return tf == 0 ? 0 : weight * tf / (1 - b + b * length / average);
+        }
+    }
+
+    // Bounded heap of the best k (score, slot) pairs with the worst one on top
+    private static final class TopHits {
+        private final double[] scores;
+        private final int[] slots;
+        private int count;
+
+        private TopHits(int k) {
+            this.scores = new double[k];
+            this.slots = new int[k];
+        }
+
+        private boolean isFull() {
+            return count == scores.length;
+        }
+
+        private double threshold() {
+            return scores[0];
+        }
+
+        private void offer(double score, int slot) {
+            if (!isFull()) {
+                scores[count] = score;
+                slots[count] = slot;
+                siftUp(count++);
+            } else if (worse(scores[0], slots[0], score, slot)) {
+                scores[0] = score;
+                slots[0] = slot;
+                siftDown(0);
+            }
+        }
+
+        // Positions in the heap, best first
+        private Integer[] ranked() {
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingDouble((Integer i) -> -scores[i]).thenComparingInt(i -> slots[i]));
+            return order;
+        }
+
+        // Lower score, or the same score further down the load order
+        private static boolean worse(double score, int slot, double otherScore, int otherSlot) {
+            return score < otherScore || (score == otherScore && slot > otherSlot);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!worse(scores[i], slots[i], scores[parent], slots[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int worst = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < count; child++) {
+                    if (worse(scores[child], slots[child], scores[worst], slots[worst])) {
+                        worst = child;
+                    }
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+            int slot = slots[a];
+            slots[a] = slots[b];
+            slots[b] = slot;
+        }
+    }
+}
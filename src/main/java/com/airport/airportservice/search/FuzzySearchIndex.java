@@ -0,0 +1,352 @@
+package com.airport.airportservice.search;
+
+import com.airport.airportservice.index.AirportIndexListener;
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.FuzzyMatch;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Typo tolerant search over the words of name and city. Every airport gets a slot, every distinct word (term) a
+// posting list of the slots it appears in, and the TermDictionary finds the terms within a few edits of each query
+// word. Slots are never reused: a removed airport leaves a hole that searches skip, and the whole index is rebuilt
+// from the live airports once more than half of the slots are holes. Kept up to date from the AirportIndex.
+@Component
+public class FuzzySearchIndex implements AirportIndexListener {
+
+    public static final int MAX_EDITS = 2;
+    public static final int MAX_LIMIT = 100;
+    public static final int MAX_WORDS = 32;
+
+    private static final int MIN_DEAD_FOR_COMPACTION = 1024;
+
+    // Posting entries are slot << 1 | 1 when the term is only in the city, word hits are slot << 3 | edits << 1 | city
+    private static final int CITY_ONLY = 1;
+    private static final long SLOT_MASK = (1L << 44) - 1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final TermDictionary dictionary = new TermDictionary();
+    private final Map<String, Integer> slotByIcao = new HashMap<>();
+    private Airport[] airports = new Airport[0];
+    private int size;
+    private int dead;
+
+    @Override
+    public void onReload(List<Airport> rows) {
+        lock.writeLock().lock();
+        try {
+            rebuild(rows);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onAdd(Airport airport) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotByIcao.get(airport.getIcao());
+            if (existing != null) {
+                kill(existing);
+            }
+            index(airport, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onRemove(Airport airport) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByIcao.remove(airport.getIcao());
+            if (slot != null) {
+                kill(slot);
+                if (dead > MIN_DEAD_FOR_COMPACTION && dead * 2 > size) {
+                    List<Airport> live = new ArrayList<>(size - dead);
+                    for (int i = 0; i < size; i++) {
+                        if (airports[i] != null) {
+                            live.add(airports[i]);
+                        }
+                    }
+                    rebuild(live);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return dictionary.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Airports whose name or city has a term close to every word of the query. Words of up to 2 characters and
+    // numbers must match exactly, words of 3 to 5 characters may be 1 edit off, longer ones up to maxEdits.
+    // Best matches first: fewest edits in total, then more words matched in the name, then load order.
+    public List<FuzzyMatch> search(String query, int maxEdits, int limit) {
+        if (maxEdits < 0 || maxEdits > MAX_EDITS) {
+            throw new IllegalArgumentException("maxEdits must be between 0 and " + MAX_EDITS + ".");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(Tokenizer.tokens(query)));
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException("Search text must contain at least one letter or digit.");
+        }
+        if (words.size() > MAX_WORDS) {
+            throw new IllegalArgumentException("Search text can have at most " + MAX_WORDS + " words.");
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Word> matched = new ArrayList<>();
+            for (String text : words) {
+                Map<String, Integer> terms = new HashMap<>();
+                dictionary.search(text, allowedEdits(text, maxEdits), terms);
+                if (terms.isEmpty()) {
+                    return List.of();
+                }
+                matched.add(new Word(terms));
+            }
+            List<Word> bySize = new ArrayList<>(matched);
+            bySize.sort(Comparator.comparingLong(word -> word.postingsSize));
+
+            long[] best = topKeys(bySize, limit);
+            List<FuzzyMatch> results = new ArrayList<>(best.length);
+            for (long key : best) {
+                Airport airport = airports[(int) (key & SLOT_MASK)];
+                results.add(new FuzzyMatch(airport, (int) (key >>> 52), matchedTerms(airport, matched)));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int allowedEdits(String word, int maxEdits) {
+        if (word.length() <= 2 || Tokenizer.isNumber(word)) {
+            return 0;
+        }
+        return word.length() <= 5 ? Math.min(1, maxEdits) : maxEdits;
+    }
+
+    // Walks the hits of the word with the fewest postings in slot order and joins the other words on slot, each of them
+    // moving forward through its own posting lists. Results are kept as sortable keys, total edits << 52 | words
+    // matched only in the city << 44 | slot. Slots only go up during the walk, so it stops as soon as every kept key
+    // has the fewest edits and city-only words any airport could have: nothing later can beat them.
+    private long[] topKeys(List<Word> words, int limit) {
+        HitStream driver = new HitStream(words.get(0));
+        List<HitStream> others = new ArrayList<>();
+        long lowerBound = 0;
+        for (Word word : words) {
+            if (word != words.get(0)) {
+                others.add(new HitStream(word));
+            }
+            lowerBound += (long) word.bestEdits << 8 | word.bestCityOnly;
+        }
+
+        PriorityQueue<Long> worstFirst = new PriorityQueue<>(Comparator.reverseOrder());
+        candidates:
+        for (int hit = driver.next(); hit >= 0; hit = driver.next()) {
+            int slot = hit >>> 3;
+            int edits = (hit >>> 1) & 3;
+            int cityWords = hit & CITY_ONLY;
+            for (HitStream other : others) {
+                int match = other.seek(slot);
+                if (match < 0) {
+                    continue candidates;
+                }
+                edits += (match >>> 1) & 3;
+                cityWords += match & CITY_ONLY;
+            }
+            long key = (long) edits << 52 | (long) cityWords << 44 | slot;
+            if (worstFirst.size() < limit) {
+                worstFirst.add(key);
+            } else if (key < worstFirst.peek()) {
+                worstFirst.poll();
+                worstFirst.add(key);
+            }
+            if (worstFirst.size() == limit && worstFirst.peek() >>> 44 <= lowerBound) {
+                break;
+            }
+        }
+        long[] keys = worstFirst.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    // For each query word the closest term of this airport, for the response
+    private static List<String> matchedTerms(Airport airport, List<Word> words) {
+        List<String> tokens = Tokenizer.tokens(airport.getName());
+        tokens.addAll(Tokenizer.tokens(airport.getCity()));
+        List<String> terms = new ArrayList<>();
+        for (Word word : words) {
+            String closest = null;
+            for (String token : tokens) {
+                Integer edits = word.terms.get(token);
+                if (edits != null && (closest == null || edits < word.terms.get(closest))) {
+                    closest = token;
+                }
+            }
+            if (closest != null && !terms.contains(closest)) {
+                terms.add(closest);
+            }
+        }
+        return terms;
+    }
+
+    private void rebuild(List<Airport> rows) {
+        postings.clear();
+        slotByIcao.clear();
+        airports = new Airport[Math.max(16, rows.size())];
+        size = 0;
+        dead = 0;
+        for (Airport airport : rows) {
+            index(airport, false);
+        }
+        dictionary.rebuild(postings.keySet());
+    }
+
+    private void index(Airport airport, boolean addToDictionary) {
+        if (size == airports.length) {
+            airports = Arrays.copyOf(airports, size * 2);
+        }
+        int slot = size++;
+        airports[slot] = airport;
+        slotByIcao.put(airport.getIcao(), slot);
+
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        for (String token : Tokenizer.tokens(airport.getName())) {
+            terms.put(token, 0);
+        }
+        for (String token : Tokenizer.tokens(airport.getCity())) {
+            terms.putIfAbsent(token, CITY_ONLY);
+        }
+        terms.forEach((term, cityOnly) -> {
+            Postings list = postings.get(term);
+            if (list == null) {
+                list = new Postings();
+                postings.put(term, list);
+                if (addToDictionary) {
+                    dictionary.add(term);
+                }
+            }
+            list.add(slot << 1 | cityOnly);
+        });
+    }
+
+    private void kill(int slot) {
+        airports[slot] = null;
+        dead++;
+    }
+
+    // The dictionary terms matching one query word, with their edits
+    private final class Word {
+        private final Map<String, Integer> terms;
+        private final long postingsSize;
+        // Fewest edits of any matching term, and 1 when every term with that many edits is only in cities
+        private final int bestEdits;
+        private final int bestCityOnly;
+
+        private Word(Map<String, Integer> terms) {
+            this.terms = terms;
+            long total = 0;
+            int fewest = Integer.MAX_VALUE;
+            int cityOnly = CITY_ONLY;
+            for (Map.Entry<String, Integer> term : terms.entrySet()) {
+                Postings list = postings.get(term.getKey());
+                total += list.size();
+                int termCityOnly = list.nameEntries() > 0 ? 0 : CITY_ONLY;
+                if (term.getValue() < fewest) {
+                    fewest = term.getValue();
+                    cityOnly = termCityOnly;
+                } else if (term.getValue() == fewest) {
+                    cityOnly = Math.min(cityOnly, termCityOnly);
+                }
+            }
+            this.postingsSize = total;
+            this.bestEdits = fewest;
+            this.bestCityOnly = cityOnly;
+        }
+    }
+
+    // Merges the posting lists of every term of a word on the fly, in slot order. Hits are
+    // slot << 3 | edits << 1 | city only, the best one when several terms of the word are in the same airport.
+    private final class HitStream {
+        private final PriorityQueue<Cursor> queue = new PriorityQueue<>(Comparator.comparingInt(Cursor::slot));
+
+        private HitStream(Word word) {
+            word.terms.forEach((term, edits) -> queue.add(new Cursor(postings.get(term), edits)));
+        }
+
+        // Next hit of a live airport, -1 when there are no more
+        private int next() {
+            while (!queue.isEmpty()) {
+                int hit = take(queue.peek().slot());
+                if (hit >= 0) {
+                    return hit;
+                }
+            }
+            return -1;
+        }
+
+        // Hit for this slot or -1, slots must be asked for in increasing order
+        private int seek(int slot) {
+            while (!queue.isEmpty() && queue.peek().slot() < slot) {
+                Cursor cursor = queue.poll();
+                cursor.position = cursor.list.seek(slot, cursor.position);
+                if (cursor.position < cursor.list.size()) {
+                    queue.add(cursor);
+                }
+            }
+            return take(slot);
+        }
+
+        private int take(int slot) {
+            int best = -1;
+            while (!queue.isEmpty() && queue.peek().slot() == slot) {
+                Cursor cursor = queue.poll();
+                int hit = slot << 3 | cursor.edits << 1 | (cursor.list.get(cursor.position) & CITY_ONLY);
+                if (best < 0 || hit < best) {
+                    best = hit;
+                }
+                if (++cursor.position < cursor.list.size()) {
+                    queue.add(cursor);
+                }
+            }
+            return best < 0 || airports[slot] == null ? -1 : best;
+        }
+    }
+
+    private static final class Cursor {
+        private final Postings list;
+        private final int edits;
+        private int position;
+
+        private Cursor(Postings list, int edits) {
+            this.list = list;
+            this.edits = edits;
+        }
+
+        private int slot() {
+            return list.get(position) >>> 1;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.airport.airportservice.search;
+
+import java.util.Arrays;
+
+// Growable int array of posting entries, slot << 1 | 1 when the term is only in the city.
+// Entries are only appended and slots only grow, so a list stays sorted by slot.
+final class Postings {
+
+    private int[] entries = new int[2];
+    private int size;
+    private int nameEntries;
+
+    void add(int entry) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        entries[size++] = entry;
+        if ((entry & 1) == 0) {
+            nameEntries++;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Entries where the term is in the name, removed airports included
+    int nameEntries() {
+        return nameEntries;
+    }
+
+    int get(int i) {
+        return entries[i];
+    }
+
+    // First position at or after from whose slot is at least the given one. Gallops forward before the binary search
+    // since callers move through the list in small steps most of the time.
+    int seek(int slot, int from) {
+        int low = from;
+        int step = 1;
+        while (low + step < size && entries[low + step] >>> 1 < slot) {
+            low += step;
+            step <<= 1;
+        }
+        int high = Math.min(size, low + step + 1);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid] >>> 1 < slot) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,177 @@
+package com.airport.airportservice.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Every distinct term, for edit distance lookups. Terms are kept in a trie laid out in flat arrays and searched
+// depth first with one DP row per trie level, so terms sharing a prefix share its rows and a branch that is already
+// more than maxEdits away from the query is never entered. The trie is built from scratch, terms added since then
+// wait in a small side list that is checked one by one until it is long enough to be worth a rebuild.
+// Distance is Damerau-Levenshtein in its optimal string alignment form, a swap of two neighbouring letters is one edit.
+// Not thread safe, FuzzySearchIndex guards it.
+final class TermDictionary {
+
+    private static final int PENDING_LIMIT = 4096;
+    private static final int NO_NODE = -1;
+
+    private String[] terms = new String[0];
+    private final List<String> pending = new ArrayList<>();
+    private int maxLength;
+
+    // Node 0 is the root. Children of a node are consecutive siblings in sorted order.
+    private char[] label = new char[1];
+    private int[] firstChild = {NO_NODE};
+    private int[] nextSibling = {NO_NODE};
+    // Index in terms of the term ending at the node, -1 when none does
+    private int[] termAt = {NO_NODE};
+
+    int size() {
+        return terms.length + pending.size();
+    }
+
+    void rebuild(Collection<String> all) {
+        terms = all.toArray(new String[0]);
+        Arrays.sort(terms);
+        pending.clear();
+        buildTrie();
+    }
+
+    // The caller makes sure the term is not in the dictionary yet
+    void add(String term) {
+        pending.add(term);
+        maxLength = Math.max(maxLength, term.length());
+        if (pending.size() >= PENDING_LIMIT) {
+            List<String> all = new ArrayList<>(Arrays.asList(terms));
+            all.addAll(pending);
+            rebuild(all);
+        }
+    }
+
+    // Puts every term within maxEdits of the query into matches, with its distance
+    void search(String query, int maxEdits, Map<String, Integer> matches) {
+        Search search = new Search(query.toCharArray(), maxEdits, matches);
+        for (int child = firstChild[0]; child != NO_NODE; child = nextSibling[child]) {
+            search.visit(child, 0);
+        }
+        for (String term : pending) {
+            if (Math.abs(term.length() - search.q.length) <= maxEdits) {
+                int edits = search.distance(term);
+                if (edits <= maxEdits) {
+                    matches.put(term, edits);
+                }
+            }
+        }
+    }
+
+    // Terms are sorted, so each one shares its first lcp characters with the previous one and only the rest
+    // becomes new nodes, appended after the last child at that level
+    private void buildTrie() {
+        int capacity = 1;
+        maxLength = 0;
+        for (int t = 0; t < terms.length; t++) {
+            capacity += terms[t].length() - (t == 0 ? 0 : commonPrefix(terms[t - 1], terms[t]));
+            maxLength = Math.max(maxLength, terms[t].length());
+        }
+        label = new char[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        termAt = new int[capacity];
+        firstChild[0] = nextSibling[0] = termAt[0] = NO_NODE;
+        int nodes = 1;
+
+        int[] path = new int[maxLength + 1];
+        String previous = "";
+        for (int t = 0; t < terms.length; t++) {
+            String term = terms[t];
+            for (int depth = commonPrefix(previous, term); depth < term.length(); depth++) {
+                int node = nodes++;
+                label[node] = term.charAt(depth);
+                firstChild[node] = nextSibling[node] = termAt[node] = NO_NODE;
+                int parent = path[depth];
+                if (firstChild[parent] == NO_NODE) {
+                    firstChild[parent] = node;
+                } else {
+                    // the last child of the parent is the node the previous term went through at this depth
+                    nextSibling[path[depth + 1]] = node;
+                }
+                path[depth + 1] = node;
+            }
+            termAt[path[term.length()]] = t;
+            previous = term;
+        }
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private final class Search {
+        private final char[] q;
+        private final int maxEdits;
+        private final Map<String, Integer> matches;
+        private final int[][] rows;
+        // Characters of the trie path, for transpositions
+        private final char[] path;
+
+        private Search(char[] q, int maxEdits, Map<String, Integer> matches) {
+            this.q = q;
+            this.maxEdits = maxEdits;
+            this.matches = matches;
+            this.rows = new int[maxLength + 1][q.length + 1];
+            this.path = new char[maxLength + 1];
+            for (int j = 0; j <= q.length; j++) {
+                rows[0][j] = j;
+            }
+        }
+
+        private void visit(int node, int depth) {
+            path[depth] = label[node];
+            if (fillRow(depth, label[node]) > maxEdits) {
+                return;
+            }
+            int edits = rows[depth + 1][q.length];
+            if (termAt[node] != NO_NODE && edits <= maxEdits) {
+                matches.put(terms[termAt[node]], edits);
+            }
+            for (int child = firstChild[node]; child != NO_NODE; child = nextSibling[child]) {
+                visit(child, depth + 1);
+            }
+        }
+
+        private int distance(String term) {
+            for (int depth = 0; depth < term.length(); depth++) {
+                path[depth] = term.charAt(depth);
+                if (fillRow(depth, term.charAt(depth)) > maxEdits) {
+                    return maxEdits + 1;
+                }
+            }
+            return rows[term.length()][q.length];
+        }
+
+        // Row depth + 1 of the DP table, for the path so far plus c. Returns its smallest value: no row further
+        // down can be smaller, which is what makes cutting the branch safe.
+        private int fillRow(int depth, char c) {
+            int[] above = rows[depth];
+            int[] row = rows[depth + 1];
+            row[0] = depth + 1;
+            int min = row[0];
+            for (int j = 1; j <= q.length; j++) {
+                int value = Math.min(Math.min(above[j] + 1, row[j - 1] + 1), above[j - 1] + (q[j - 1] == c ? 0 : 1));
+                if (depth > 0 && j > 1 && q[j - 1] == path[depth - 1] && q[j - 2] == c) {
+                    value = Math.min(value, rows[depth - 1][j - 2] + 1);
+                }
+                row[j] = value;
+                min = Math.min(min, value);
+            }
+            return min;
+        }
+    }
+}
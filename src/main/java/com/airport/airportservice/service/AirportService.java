@@ -1,8 +1,24 @@
 package com.airport.airportservice.service;
 
+import com.airport.airportservice.analytics.ElevationCube;
+import com.airport.airportservice.analytics.ElevationStatistics;
+import com.airport.airportservice.analytics.FrequencyCounters;
+import com.airport.airportservice.geo.DistanceMatrix;
+import com.airport.airportservice.geo.UnitVectors;
+import com.airport.airportservice.index.AirportIndex;
+import com.airport.airportservice.index.IcaoLocks;
 import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.DistanceMatrixRequest;
+import com.airport.airportservice.model.ElevationDistribution;
+import com.airport.airportservice.model.ElevationRollup;
+import com.airport.airportservice.model.FuzzyMatch;
+import com.airport.airportservice.model.SearchResults;
+import com.airport.airportservice.model.TopKResult;
 import com.airport.airportservice.repository.AirportRepository;
+import com.airport.airportservice.search.FullTextIndex;
+import com.airport.airportservice.search.FuzzySearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Page;
@@ -18,130 +34,179 @@ import java.util.stream.Collectors;
 public class AirportService {
 
     private final AirportRepository airportRepository;
+    private final AirportIndex airportIndex;
+    private final ElevationStatistics elevationStatistics;
+    private final ElevationCube elevationCube;
+    private final FrequencyCounters frequencyCounters;
+    private final UnitVectors unitVectors;
+    private final FuzzySearchIndex fuzzySearchIndex;
+    private final FullTextIndex fullTextIndex;
+    private final SingleFlight singleFlight;
+    private final IcaoLocks icaoLocks;
 
     @Autowired
-    public AirportService(AirportRepository airportRepository) {
+    public AirportService(AirportRepository airportRepository, AirportIndex airportIndex,
+                          ElevationStatistics elevationStatistics, ElevationCube elevationCube,
+                          FrequencyCounters frequencyCounters,
+                          UnitVectors unitVectors, FuzzySearchIndex fuzzySearchIndex, FullTextIndex fullTextIndex,
+                          SingleFlight singleFlight, IcaoLocks icaoLocks) {
         this.airportRepository = airportRepository;
+        this.airportIndex = airportIndex;
+        this.elevationStatistics = elevationStatistics;
+        this.elevationCube = elevationCube;
+        this.frequencyCounters = frequencyCounters;
+        this.unitVectors = unitVectors;
+        this.fuzzySearchIndex = fuzzySearchIndex;
+        this.fullTextIndex = fullTextIndex;
+        this.singleFlight = singleFlight;
+        this.icaoLocks = icaoLocks;
     }
 
+    // Pages sorted by an indexed field are cut straight out of the in-memory index, anything else still goes to the db
     public Page<Airport> getAirportsPage(int page, int size, String sortBy) {
+        if (AirportIndex.isSortable(sortBy)) {
+            return airportIndex.page(page, size, sortBy);
+        }
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortBy));
         return airportRepository.findAll(pageable);
     }
 
     // This is for sorting functionality and only allows for field name / city / state / country
+    // The expensive read methods below go through singleFlight, so identical concurrent calls on the same
+    // dataset version share one computation and one result list
     public List<Airport> getAllAirports(String sortBy) {
         if (sortBy == null || sortBy.isEmpty()) {
-            return airportRepository.findAll();
+            return singleFlight.execute("getAllAirports", airportIndex::all, null, airportIndex.version());
         }
 
-        List<String> allowedFields = List.of("name", "city", "state", "country");
-        if (!allowedFields.contains(sortBy)) {
+        if (!AirportIndex.isSortable(sortBy)) {
             throw new IllegalArgumentException("Sorting by '" + sortBy + "' is not allowed. Allowed fields: name, city, state, country.");
         }
 
-        return airportRepository.findAll(Sort.by(sortBy));
+        return singleFlight.execute("getAllAirports", () -> airportIndex.sorted(sortBy), sortBy, airportIndex.version());
     }
 
     //This is to filter search by given name can be substring of name
     public List<Airport> filterByName(String name) {
-        return airportRepository.findByNameContainingIgnoreCase(name);
+        return singleFlight.execute("filterByName",
+                () -> airportIndex.snapshot().filterByName(name), name, airportIndex.version());
+    }
+
+    // This is to find airports by name or city words even when they are misspelled, best matches first
+    public List<FuzzyMatch> fuzzySearch(String query, int maxEdits, int limit) {
+        airportIndex.ensureLoaded();
+        return fuzzySearchIndex.search(query, maxEdits, limit);
+    }
+
+    // This is to search name, city, state and codes together, ranked by relevance and one page at a time
+    public SearchResults search(String query, int page, int size) {
+        airportIndex.ensureLoaded();
+        return fullTextIndex.search(query, page, size);
     }
 
     //This is to get airport by ICAO
+    // Reads from the current snapshot like the other lookups, no database round trip and no lock
     public Optional<Airport> getAirportById(String icao) {
-        return airportRepository.findById(icao);
+        return Optional.ofNullable(airportIndex.snapshot().get(icao));
     }
 
     //This is to add Airport details with param handling
+    // The insert itself detects duplicates (no row inserted, or the primary key when another node raced it),
+    // so there is no separate exists check to race with. Any other constraint violation is not a duplicate and
+    // is rethrown.
     public Airport addAirport(Airport airport) {
         String icao = airport.getIcao();
 
-        // Validate ICAO
-        if (icao == null || !icao.matches("^[A-Z0-9]{4}$")) {
-            throw new IllegalArgumentException("ICAO code is a mandatory field, which should not contain special or lowercase characters and must be exactly 4 characters.");
-        }
-
-        // Check if ICAO already exists
-        if (airportRepository.existsById(icao)) {
-            throw new IllegalArgumentException("Airport with ICAO code '" + icao + "' already exists.");
-        }
-
-        // Putting name as a mandatory field
-        if (airport.getName() == null || airport.getName().trim().isEmpty()) {
-            throw new IllegalArgumentException("Name is a mandatory field and cannot be empty.");
-        }
-
-        // Putting Country as a mandatory field
-        if (airport.getCountry() == null || !airport.getCountry().matches("^[A-Z]{2}$")) {
-            throw new IllegalArgumentException("Country code is a mandatory field and must be two uppercase letters.");
-        }
-
-        // Putting Time Zone as a mandatory field
-        if (airport.getTz() == null || airport.getTz().trim().isEmpty()) {
-            throw new IllegalArgumentException("Timezone is a mandatory field and cannot be empty.");
-        }
-
-        // Putting Elevation as a mandatory field
-        if (airport.getElevation() == null) {
-            throw new IllegalArgumentException("Elevation is a mandatory field and must be an integer.");
-        }
-
-        // Setting constraint of latitude and is mandatory
-        if (airport.getLat() == null || airport.getLat() < -90.0 || airport.getLat() > 90.0) {
-            throw new IllegalArgumentException("Latitude is a mandatory field and must be in the range [-90, +90] degrees.");
-        }
-
-        // Setting constraint of longitude and is mandatory
-        if (airport.getLon() == null|| airport.getLon() < -180.0 || airport.getLon() > 180.0) {
-            throw new IllegalArgumentException("Longitude is a mandatory field and must be in the range [-180, +180] degrees.");
-        }
-
-        if (airport.getIata() == null) airport.setIata("");
-        if (airport.getCity() == null) airport.setCity("");
-        if (airport.getState() == null) airport.setState("");
-
-        return airportRepository.save(airport);
+        AirportValidator.validate(airport);
+        AirportValidator.applyDefaults(airport);
+
+        return icaoLocks.withLock(icao, () -> {
+            int inserted;
+            try {
+                inserted = airportRepository.insertAirport(airport);
+            } catch (DataIntegrityViolationException e) {
+                if (!airportRepository.existsById(icao)) {
+                    throw e;
+                }
+                inserted = 0;
+            }
+            if (inserted == 0) {
+                throw new IllegalArgumentException("Airport with ICAO code '" + icao + "' already exists.");
+            }
+            airportIndex.add(airport);
+            return airport;
+        });
     }
 
     //This is to delete Airport Entry By Icao if lets say it doesnot exist will throw an error
     public void deleteAirport(String icao) {
-        if(airportRepository.existsById(icao)) {
-            airportRepository.deleteById(icao);
-        }else {
-            throw new IllegalArgumentException("No Data found associated with given ICAO: " + icao);
-        }
+        icaoLocks.withLock(icao, () -> {
+            if (airportRepository.deleteByIcao(icao) == 0) {
+                throw new IllegalArgumentException("No Data found associated with given ICAO: " + icao);
+            }
+            airportIndex.remove(icao);
+            return null;
+        });
     }
 
     // To find average elevation on entire data
+    // The snapshot keeps the sum and count per country up to date, so this is one division per country
     public Map<String, Double> getAverageElevationPerCountry() {
-        List<Airport> airports = airportRepository.findAll();
+        return airportIndex.snapshot().averageElevationByCountry();
+    }
+
+    // Elevation quantiles and histogram per country or time zone, read from the sketches instead of scanning the table
+    public Map<String, ElevationDistribution> getElevationDistribution(String groupBy, List<Double> quantiles, int buckets) {
+        return singleFlight.execute("getElevationDistribution", () -> {
+            airportIndex.ensureLoaded();
+            return elevationStatistics.distribution(groupBy, quantiles, buckets);
+        }, groupBy, quantiles, buckets, airportIndex.version());
+    }
 
-        return airports.stream()
-                .filter(a -> a.getCountry() != null && !a.getCountry().isEmpty())
-                .collect(Collectors.groupingBy(
-                        Airport::getCountry,
-                        Collectors.averagingInt(Airport::getElevation)
-                ));
+    // This is to get count and min / max / average elevation grouped by any of country, state and tz and narrowed by
+    // filters on them, answered from the precomputed cube without a scan
+    public ElevationRollup getElevationRollup(List<String> groupBy, Map<String, String> filters) {
+        airportIndex.ensureLoaded();
+        return elevationCube.rollup(groupBy, filters);
     }
 
     //To get List of Airports without IATO code
     public List<Airport> getAirportsWithoutIataCode() {
-        return airportRepository.findAll().stream()
+        return singleFlight.execute("getAirportsWithoutIataCode", () -> airportIndex.snapshot().all().stream()
                 .filter(a -> a.getIata() == null || a.getIata().isBlank())
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()), airportIndex.version());
     }
 
     //This is to find 10 most common Time Zones
     public List<Map.Entry<String, Long>> getTop10TimeZones() {
-        return airportRepository.findAll().stream()
-                .filter(a -> a.getTz() != null && !a.getTz().isBlank())
-                .collect(Collectors.groupingBy(Airport::getTz, Collectors.counting()))
-                .entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(10)
+        return getTopValues("tz", 10).getEntries().stream()
+                .map(entry -> Map.entry(entry.getValue(), entry.getCount()))
                 .collect(Collectors.toList());
     }
 
+    // This is to find the k most common values of tz / country / state / city from the incrementally kept counters
+    public TopKResult getTopValues(String field, int k) {
+        return singleFlight.execute("getTopValues", () -> {
+            airportIndex.ensureLoaded();
+            return frequencyCounters.top(field, k);
+        }, field, k, airportIndex.version());
+    }
+
+    // This is to get the great-circle distance between every airport in from and every airport in to (to defaults to from).
+    // The returned matrix is computed row by row while it is written out
+    public DistanceMatrix getDistanceMatrix(DistanceMatrixRequest request) {
+        List<String> from = request.getFrom();
+        if (from == null || from.isEmpty()) {
+            throw new IllegalArgumentException("'from' must contain at least one ICAO code.");
+        }
+        List<String> to = request.getTo() == null || request.getTo().isEmpty() ? from : request.getTo();
+        if ((long) from.size() * to.size() > DistanceMatrix.MAX_CELLS) {
+            throw new IllegalArgumentException("A distance matrix can have at most " + DistanceMatrix.MAX_CELLS
+                    + " cells, this request has " + (long) from.size() * to.size() + ".");
+        }
+
+        airportIndex.ensureLoaded();
+        return unitVectors.matrix(from, to);
+    }
 
-}
\ No newline at end of file
+}
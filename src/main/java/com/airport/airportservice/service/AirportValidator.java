@@ -0,0 +1,68 @@
+package com.airport.airportservice.service;
+
+import com.airport.airportservice.model.Airport;
+
+import java.util.regex.Pattern;
+
+// Rules an airport has to pass before it is stored, shared by addAirport and the CSV / NDJSON ingestion
+public final class AirportValidator {
+
+    // Compiled once, ingestion runs these for every row
+    private static final Pattern ICAO = Pattern.compile("^[A-Z0-9]{4}$");
+    private static final Pattern COUNTRY = Pattern.compile("^[A-Z]{2}$");
+
+    private AirportValidator() {
+    }
+
+    // Runs every rule, the same order addAirport applies them
+    public static void validate(Airport airport) {
+        validateIcao(airport);
+        validateFields(airport);
+    }
+
+    public static void validateIcao(Airport airport) {
+        String icao = airport.getIcao();
+        if (icao == null || !ICAO.matcher(icao).matches()) {
+            throw new IllegalArgumentException("ICAO code is a mandatory field, which should not contain special or lowercase characters and must be exactly 4 characters.");
+        }
+    }
+
+    public static void validateFields(Airport airport) {
+        // Putting name as a mandatory field
+        if (airport.getName() == null || airport.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("Name is a mandatory field and cannot be empty.");
+        }
+
+        // Putting Country as a mandatory field
+        if (airport.getCountry() == null || !COUNTRY.matcher(airport.getCountry()).matches()) {
+            throw new IllegalArgumentException("Country code is a mandatory field and must be two uppercase letters.");
+        }
+
+        // Putting Time Zone as a mandatory field
+        if (airport.getTz() == null || airport.getTz().trim().isEmpty()) {
+            throw new IllegalArgumentException("Timezone is a mandatory field and cannot be empty.");
+        }
+
+        // Putting Elevation as a mandatory field
+        if (airport.getElevation() == null) {
+            throw new IllegalArgumentException("Elevation is a mandatory field and must be an integer.");
+        }
+
+        // Setting constraint of latitude and is mandatory
+        if (airport.getLat() == null || airport.getLat() < -90.0 || airport.getLat() > 90.0) {
+            throw new IllegalArgumentException("Latitude is a mandatory field and must be in the range [-90, +90] degrees.");
+        }
+
+        // Setting constraint of longitude and is mandatory
+        if (airport.getLon() == null|| airport.getLon() < -180.0 || airport.getLon() > 180.0) {
+            throw new IllegalArgumentException("Longitude is a mandatory field and must be in the range [-180, +180] degrees.");
+        }
+    }
+
+    // Optional text fields are stored as empty strings rather than null
+    public static void applyDefaults(Airport airport) {
+        if (airport.getIata() == null) airport.setIata("");
+        if (airport.getCity() == null) airport.setCity("");
+        if (airport.getState() == null) airport.setState("");
+    }
+}
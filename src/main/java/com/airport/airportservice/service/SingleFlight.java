@@ -0,0 +1,77 @@
+package com.airport.airportservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Request coalescing: while a computation for a key is running, other callers with the same key wait for it
+// and get the very same result object instead of starting their own. Results are shared so callers must not modify them.
+// Nothing is cached, the key is gone as soon as the computation finishes.
+@Component
+public class SingleFlight {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gaugeMapSize("airport.singleflight.inflight", List.of(), inFlight);
+    }
+
+    // The key is the operation name plus everything its result depends on, including the dataset version
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Supplier<T> computation, Object... keyParts) {
+        List<Object> key = List.of(operation, Arrays.asList(keyParts));
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            counter("airport.singleflight.coalesced", operation).increment();
+            return (T) await(running);
+        }
+
+        counter("airport.singleflight.executions", operation).increment();
+        try {
+            T result = computation.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public long coalescedCount(String operation) {
+        return (long) counter("airport.singleflight.coalesced", operation).count();
+    }
+
+    // Waiters see the same exception the leader got, so error handling stays the same for them
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return meterRegistry.counter(name, "operation", operation);
+    }
+}
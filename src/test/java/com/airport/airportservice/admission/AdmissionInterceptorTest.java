@@ -0,0 +1,156 @@
+package com.airport.airportservice.admission;
+
+import com.airport.airportservice.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionInterceptorTest {
+
+    private AdmissionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionInterceptor interceptor;
+
+    private HandlerMethod scanHandler;
+    private HandlerMethod lookupHandler;
+    private HandlerMethod searchHandler;
+
+    static class Endpoints {
+        @Admission(EndpointClass.SCAN)
+        public void scan() {
+        }
+
+        @Admission(EndpointClass.LOOKUP)
+        public void lookup() {
+        }
+
+        @Admission(EndpointClass.SEARCH)
+        public void search() {
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new AdmissionProperties();
+        properties.setScan(new AdmissionProperties.Limits(1, 0, 0));
+        properties.setLookup(new AdmissionProperties.Limits(2, 0, 0));
+        properties.setSearch(new AdmissionProperties.Limits(1, 0, 0));
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new AdmissionInterceptor(properties, meterRegistry);
+
+        Endpoints endpoints = new Endpoints();
+        scanHandler = new HandlerMethod(endpoints, Endpoints.class.getMethod("scan"));
+        lookupHandler = new HandlerMethod(endpoints, Endpoints.class.getMethod("lookup"));
+        searchHandler = new HandlerMethod(endpoints, Endpoints.class.getMethod("search"));
+    }
+
+    @Test
+    void preHandle_ScanPoolFull_ShouldRejectScanButAdmitLookup() {
+        // Arrange
+        MockHttpServletRequest runningScan = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(runningScan, response, scanHandler));
+
+        // Act & Assert
+        AdmissionRejectedException exception = assertThrows(
+                AdmissionRejectedException.class,
+                () -> interceptor.preHandle(new MockHttpServletRequest(), response, scanHandler)
+        );
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, lookupHandler));
+        assertEquals(1.0, meterRegistry.counter("airport.admission.rejected", "class", "scan", "reason", "concurrency").count());
+    }
+
+    @Test
+    void preHandle_SearchPoolFull_ShouldRejectSearchButAdmitLookup() {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, searchHandler));
+
+        // Act & Assert
+        assertThrows(AdmissionRejectedException.class,
+                () -> interceptor.preHandle(new MockHttpServletRequest(), response, searchHandler));
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, lookupHandler));
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, lookupHandler));
+        assertEquals(1.0, meterRegistry.counter("airport.admission.rejected", "class", "search", "reason", "concurrency").count());
+    }
+
+    @Test
+    void afterCompletion_ShouldReleasePermit() {
+        // Arrange
+        MockHttpServletRequest first = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(first, response, scanHandler);
+
+        // Act
+        interceptor.afterCompletion(first, response, scanHandler, null);
+
+        // Assert
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, scanHandler));
+    }
+
+    @Test
+    void preHandle_ClientOverRate_ShouldRejectWith429() {
+        // Arrange
+        properties.setScan(new AdmissionProperties.Limits(10, 0.001, 2));
+        interceptor = new AdmissionInterceptor(properties, new SimpleMeterRegistry());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        assertTrue(interceptor.preHandle(clientRequest("10.0.0.1"), response, scanHandler));
+        assertTrue(interceptor.preHandle(clientRequest("10.0.0.1"), response, scanHandler));
+        AdmissionRejectedException exception = assertThrows(
+                AdmissionRejectedException.class,
+                () -> interceptor.preHandle(clientRequest("10.0.0.1"), response, scanHandler)
+        );
+
+        // Assert
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatus());
+        assertTrue(exception.getRetryAfterSeconds() > 0);
+        assertTrue(interceptor.preHandle(clientRequest("10.0.0.2"), response, scanHandler)); // other clients keep their budget
+    }
+
+    @Test
+    void preHandle_RotatingForwardedFor_ShouldStillCountAgainstTheSocketAddress() {
+        // Arrange
+        properties.setScan(new AdmissionProperties.Limits(10, 0.001, 2));
+        interceptor = new AdmissionInterceptor(properties, new SimpleMeterRegistry());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = clientRequest("10.0.0.1");
+            request.addHeader("X-Forwarded-For", "192.0.2." + i);
+            assertTrue(interceptor.preHandle(request, response, scanHandler));
+        }
+        MockHttpServletRequest rotated = clientRequest("10.0.0.1");
+        rotated.addHeader("X-Forwarded-For", "192.0.2.99");
+
+        // Assert
+        assertThrows(AdmissionRejectedException.class, () -> interceptor.preHandle(rotated, response, scanHandler));
+    }
+
+    @Test
+    void preHandle_Disabled_ShouldAdmitEverything() {
+        // Arrange
+        properties.setEnabled(false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act & Assert
+        for (int i = 0; i < 5; i++) {
+            assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, scanHandler));
+        }
+    }
+
+    private static MockHttpServletRequest clientRequest(String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(address);
+        return request;
+    }
+}
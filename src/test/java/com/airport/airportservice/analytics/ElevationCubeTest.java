@@ -0,0 +1,215 @@
+package com.airport.airportservice.analytics;
+
+import com.airport.airportservice.index.AirportIndex;
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.ElevationRollup;
+import com.airport.airportservice.repository.AirportRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ElevationCubeTest {
+
+    private static final List<List<String>> GROUP_BYS = List.of(List.of(), List.of("country"), List.of("state"),
+            List.of("tz"), List.of("country", "state"), List.of("tz", "country"), List.of("state", "tz"),
+            List.of("country", "state", "tz"));
+
+    @Test
+    void rollup_AfterParallelRebuild_ShouldMatchAScan() {
+        // Arrange
+        Random random = new Random(5);
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < 30_000; i++) {
+            airports.add(randomAirport(random, i));
+        }
+        ElevationCube cube = new ElevationCube();
+
+        // Act
+        cube.onReload(airports);
+
+        // Assert
+        assertMatchesScan(cube, airports);
+    }
+
+    @Test
+    void rollup_AfterWrites_ShouldMatchAScanAndARebuild() {
+        // Arrange
+        Random random = new Random(8);
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            airports.add(randomAirport(random, i));
+        }
+        ElevationCube cube = new ElevationCube();
+        cube.onReload(airports);
+
+        // Act
+        for (int i = 0; i < 3_000; i++) {
+            if (random.nextInt(3) == 0) {
+                Airport added = randomAirport(random, 2_000 + i);
+                airports.add(added);
+                cube.onAdd(added);
+            } else {
+                cube.onRemove(airports.remove(random.nextInt(airports.size())));
+            }
+            if (i % 500 == 0) {
+                assertMatchesScan(cube, airports);
+            }
+        }
+
+        // Assert
+        assertMatchesScan(cube, airports);
+        ElevationCube rebuilt = new ElevationCube();
+        rebuilt.onReload(airports);
+        for (List<String> groupBy : GROUP_BYS) {
+            assertEquals(rebuilt.rollup(groupBy, Map.of()), cube.rollup(groupBy, Map.of()));
+        }
+    }
+
+    @Test
+    void rollup_WhileTheIndexIsWritten_ShouldEndUpMatchingTheIndex() throws Exception {
+        // Arrange
+        Random random = new Random(13);
+        List<Airport> initial = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            initial.add(randomAirport(random, i));
+        }
+        AirportRepository repository = mock(AirportRepository.class);
+        when(repository.findAll()).thenReturn(initial);
+        ElevationCube cube = new ElevationCube();
+        AirportIndex index = new AirportIndex(repository, List.of(cube));
+        index.ensureLoaded();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService readers = Executors.newFixedThreadPool(3);
+        List<Future<?>> reads = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            reads.add(readers.submit(() -> {
+                for (int i = 0; writing.get(); i++) {
+                    cube.rollup(GROUP_BYS.get(i % GROUP_BYS.size()), Map.of());
+                }
+            }));
+        }
+
+        // Act
+        List<String> live = new ArrayList<>(initial.stream().map(Airport::getIcao).toList());
+        try {
+            for (int i = 0; i < 4_000; i++) {
+                if (random.nextInt(3) == 0) {
+                    Airport added = randomAirport(random, 2_000 + i);
+                    live.add(added.getIcao());
+                    index.add(added);
+                } else {
+                    index.remove(live.remove(random.nextInt(live.size())));
+                }
+            }
+        } finally {
+            writing.set(false);
+            readers.shutdown();
+        }
+        for (Future<?> read : reads) {
+            read.get(10, TimeUnit.SECONDS);
+        }
+
+        // Assert
+        assertMatchesScan(cube, index.all());
+    }
+
+    @Test
+    void rollup_ShouldDrillDownAndRejectUnknownFields() {
+        // Arrange
+        ElevationCube cube = new ElevationCube();
+        cube.onReload(List.of(
+                airport("KJFK", "US", "NY", "America/New_York", 13),
+                airport("KALB", "US", "NY", "America/New_York", 285),
+                airport("KDEN", "US", "CO", "America/Denver", 5434),
+                airport("KXXX", "US", "CO", "America/Denver", null),
+                airport("EGLL", "GB", null, "Europe/London", 83)));
+
+        // Act
+        ElevationRollup total = cube.rollup(List.of(), Map.of());
+        ElevationRollup usStates = cube.rollup(List.of("state"), Map.of("country", "US"));
+
+        // Assert
+        assertEquals(1, total.getRows().size());
+        assertEquals(5, total.getCount());
+        assertEquals(4, total.getRows().get(0).getElevationCount());
+        assertEquals(1453.75, total.getRows().get(0).getAverageElevation());
+        assertEquals(List.of("US-CO", "US-NY"), usStates.getRows().stream().map(r -> r.getGroup().get("state")).toList());
+        ElevationRollup.Row colorado = usStates.getRows().get(0);
+        assertEquals(2, colorado.getCount());
+        assertEquals(1, colorado.getElevationCount());
+        assertEquals(5434, colorado.getMinElevation());
+        assertEquals(0, cube.rollup(List.of("tz"), Map.of("country", "FR")).getCount());
+        assertThrows(IllegalArgumentException.class, () -> cube.rollup(List.of("city"), Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> cube.rollup(List.of("tz", "tz"), Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> cube.rollup(List.of(), Map.of("name", "x")));
+    }
+
+    private static void assertMatchesScan(ElevationCube cube, List<Airport> airports) {
+        for (List<String> groupBy : GROUP_BYS) {
+            assertEquals(scan(airports, groupBy, null), cube.rollup(groupBy, Map.of()).getRows());
+            assertEquals(scan(airports, groupBy, "C1"),
+                    cube.rollup(groupBy, Map.of("country", "C1")).getRows());
+        }
+    }
+
+    // The rows computed straight from the airports, sorted like the cube sorts them
+    private static List<ElevationRollup.Row> scan(List<Airport> airports, List<String> groupBy, String country) {
+        Map<String, Function<Airport, String>> values = Map.of("country", Airport::getCountry,
+                "state", Airport::getRegion, "tz", Airport::getTz);
+        Map<List<String>, List<Airport>> groups =
+                new TreeMap<>((a, b) -> String.join("\0", a).compareTo(String.join("\0", b)));
+        for (Airport airport : airports) {
+            if (country == null || country.equals(airport.getCountry())) {
+                List<String> key = groupBy.stream().map(field -> values.get(field).apply(airport)).toList();
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(airport);
+            }
+        }
+        List<ElevationRollup.Row> rows = new ArrayList<>();
+        groups.forEach((key, members) -> {
+            Map<String, String> group = new HashMap<>();
+            for (int i = 0; i < groupBy.size(); i++) {
+                group.put(groupBy.get(i), key.get(i));
+            }
+            IntSummaryStatistics stats = members.stream().filter(a -> a.getElevation() != null)
+                    .mapToInt(Airport::getElevation).summaryStatistics();
+            rows.add(stats.getCount() == 0
+                    ? new ElevationRollup.Row(group, members.size(), 0, null, null, null)
+                    : new ElevationRollup.Row(group, members.size(), stats.getCount(), stats.getMin(), stats.getMax(),
+                            (double) stats.getSum() / stats.getCount()));
+        });
+        return rows;
+    }
+
+    // A few countries, states and zones and a narrow elevation range, so cells share their min and max
+    private static Airport randomAirport(Random random, int i) {
+        String country = "C" + random.nextInt(4);
+        return airport(String.format("R%05d", i), country, "S" + random.nextInt(6), "Z" + random.nextInt(3),
+                random.nextInt(10) == 0 ? null : random.nextInt(50));
+    }
+
+    private static Airport airport(String icao, String country, String state, String tz, Integer elevation) {
+        Airport airport = new Airport();
+        airport.setIcao(icao);
+        airport.setCountry(country);
+        airport.setState(state);
+        airport.setTz(tz);
+        airport.setElevation(elevation);
+        return airport;
+    }
+}
@@ -0,0 +1,95 @@
+package com.airport.airportservice.analytics;
+
+import com.airport.airportservice.index.AirportIndex;
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.ElevationDistribution;
+import com.airport.airportservice.repository.AirportRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ElevationStatisticsTest {
+
+    @Test
+    void distribution_WhileTheIndexIsWritten_ShouldMatchARebuild() throws Exception {
+        // Arrange
+        Random random = new Random(21);
+        List<Airport> initial = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            initial.add(airport(random, i));
+        }
+        AirportRepository repository = mock(AirportRepository.class);
+        when(repository.findAll()).thenReturn(initial);
+        ElevationStatistics statistics = new ElevationStatistics();
+        AirportIndex index = new AirportIndex(repository, List.of(statistics));
+        index.ensureLoaded();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService readers = Executors.newFixedThreadPool(2);
+        List<Future<?>> reads = new ArrayList<>();
+        for (String field : ElevationStatistics.GROUP_FIELDS) {
+            reads.add(readers.submit(() -> {
+                while (writing.get()) {
+                    statistics.distribution(field, List.of(0.5), 4);
+                }
+            }));
+        }
+
+        // Act
+        List<String> live = new ArrayList<>(initial.stream().map(Airport::getIcao).toList());
+        try {
+            for (int i = 0; i < 4_000; i++) {
+                if (random.nextInt(3) == 0) {
+                    Airport added = airport(random, 2_000 + i);
+                    live.add(added.getIcao());
+                    index.add(added);
+                } else {
+                    index.remove(live.remove(random.nextInt(live.size())));
+                }
+            }
+        } finally {
+            writing.set(false);
+            readers.shutdown();
+        }
+        // a reader holding the statistics while a writer holds the index would never finish
+        for (Future<?> read : reads) {
+            read.get(10, TimeUnit.SECONDS);
+        }
+
+        // Assert
+        ElevationStatistics rebuilt = new ElevationStatistics();
+        rebuilt.onReload(index.all());
+        for (String field : ElevationStatistics.GROUP_FIELDS) {
+            Map<String, ElevationDistribution> expected = rebuilt.distribution(field, List.of(0.5), 4);
+            Map<String, ElevationDistribution> actual = statistics.distribution(field, List.of(0.5), 4);
+            assertEquals(expected.keySet(), actual.keySet());
+            expected.forEach((group, distribution) -> {
+                assertEquals(distribution.getCount(), actual.get(group).getCount(), group);
+                assertEquals(distribution.getMin(), actual.get(group).getMin(), group);
+                assertEquals(distribution.getMax(), actual.get(group).getMax(), group);
+                assertEquals(distribution.getQuantiles().get("p50"), actual.get(group).getQuantiles().get("p50"), 1.0,
+                        group);
+            });
+        }
+    }
+
+    private static Airport airport(Random random, int i) {
+        Airport airport = new Airport();
+        airport.setIcao(String.format("E%05d", i));
+        airport.setCountry("C" + random.nextInt(5));
+        airport.setTz("Z" + random.nextInt(3));
+        airport.setElevation(random.nextInt(20) == 0 ? null : random.nextInt(40));
+        return airport;
+    }
+}
@@ -0,0 +1,110 @@
+package com.airport.airportservice.config;
+
+import com.airport.airportservice.index.AirportIndex;
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.IngestionReport;
+import com.airport.airportservice.repository.AirportRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class DataExporterTest {
+
+    @Autowired
+    private DataExporter dataExporter;
+
+    @Autowired
+    private DataLoader dataLoader;
+
+    @Autowired
+    private AirportRepository airportRepository;
+
+    @Autowired
+    private AirportIndex airportIndex;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        airportRepository.deleteAll();
+        airportIndex.reload();
+        try (InputStream sample = getClass().getResourceAsStream("/data/airports-sample.json")) {
+            dataLoader.loadAirportDataFromInputStream(sample);
+        }
+    }
+
+    @Test
+    void export_ShouldWriteKeyedJsonThatLoadsBack() throws Exception {
+        // Arrange
+        List<Airport> before = rows();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long exported = dataExporter.export(out);
+        airportRepository.deleteAll();
+        airportIndex.reload();
+        long loaded = dataLoader.loadAirportDataFromInputStream(new ByteArrayInputStream(out.toByteArray()));
+
+        // Assert
+        assertEquals(before.size(), exported);
+        assertEquals(exported, loaded);
+        assertEquals(before, rows());
+        JsonNode json = new ObjectMapper().readTree(out.toByteArray());
+        List<String> keys = new ArrayList<>();
+        json.fieldNames().forEachRemaining(keys::add);
+        assertEquals(before.stream().map(Airport::getIcao).toList(), keys);
+        JsonNode first = json.get(keys.get(0));
+        assertEquals(keys.get(0), first.get("icao").asText());
+        assertFalse(first.has("region"));
+    }
+
+    @Test
+    void exportGzip_DiffLoad_ShouldFindNothingChanged() throws Exception {
+        // Arrange
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        // Act
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            dataExporter.export(gzip);
+        }
+        IngestionReport report = dataLoader.diffLoadAirportDataFromInputStream(
+                new ByteArrayInputStream(compressed.toByteArray()), DataLoader.encodingFromFileName("airports.json.gz"),
+                AirportFormat.JSON);
+
+        // Assert
+        assertEquals(0, report.getInserted() + report.getUpdated() + report.getDeleted());
+        assertEquals(airportRepository.count(), report.getUnchanged());
+    }
+
+    @Test
+    void export_EmptyTable_ShouldWriteEmptyObject() {
+        // Arrange
+        airportRepository.deleteAll();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long exported = dataExporter.export(out);
+
+        // Assert
+        assertEquals(0, exported);
+        assertEquals("{}", out.toString());
+    }
+
+    private List<Airport> rows() {
+        List<Airport> rows = new ArrayList<>(airportRepository.findAll());
+        rows.sort(Comparator.comparing(Airport::getIcao));
+        return rows;
+    }
+}
@@ -0,0 +1,250 @@
+package com.airport.airportservice.config;
+
+import com.airport.airportservice.index.AirportIndex;
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.IngestionReport;
+import com.airport.airportservice.repository.AirportRepository;
+import com.airport.airportservice.service.AirportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class DataLoaderTest {
+
+    @Autowired
+    private DataLoader dataLoader;
+
+    @Autowired
+    private AirportRepository airportRepository;
+
+    @Autowired
+    private AirportIndex airportIndex;
+
+    @Autowired
+    private AirportService airportService;
+
+    @BeforeEach
+    void setUp() {
+        airportRepository.deleteAll();
+        airportIndex.reload();
+        dataLoader.loadAirportDataFromInputStream(json(
+                airport("KJFK", "John F Kennedy International", 13),
+                airport("EGLL", "Heathrow Airport", 83),
+                airport("KLAX", "Los Angeles International", 125)));
+    }
+
+    @Test
+    void diffLoad_ShouldOnlyWriteChangedRows() {
+        // Act
+        IngestionReport report = dataLoader.diffLoadAirportDataFromInputStream(json(
+                airport("KJFK", "John F Kennedy International", 13),
+                airport("EGLL", "London Heathrow", 83),
+                airport("EDDF", "Frankfurt am Main", 364)));
+
+        // Assert
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getUpdated());
+        assertEquals(1, report.getDeleted());
+        assertEquals(1, report.getUnchanged());
+        assertEquals(3, airportRepository.count());
+        assertFalse(airportRepository.existsById("KLAX"));
+        assertEquals("London Heathrow", airportRepository.findById("EGLL").orElseThrow().getName());
+        List<Airport> byName = airportIndex.sorted("name");
+        assertEquals(List.of("EDDF", "KJFK", "EGLL"), byName.stream().map(Airport::getIcao).toList());
+    }
+
+    @Test
+    void diffLoad_SameFile_ShouldWriteNothing() {
+        // Act
+        IngestionReport report = dataLoader.diffLoadAirportDataFromInputStream(json(
+                airport("KJFK", "John F Kennedy International", 13),
+                airport("EGLL", "Heathrow Airport", 83),
+                airport("KLAX", "Los Angeles International", 125)));
+
+        // Assert
+        assertEquals(0, report.getInserted() + report.getUpdated() + report.getDeleted());
+        assertEquals(3, report.getUnchanged());
+    }
+
+    @Test
+    void diffLoad_LargeDelta_ShouldPublishOneRebuiltSnapshot() {
+        // Arrange
+        List<String> airports = new ArrayList<>();
+        airports.add(airport("KJFK", "John F Kennedy International", 14));
+        for (int i = 0; i < 30; i++) {
+            airports.add(airport(String.format("ZZ%02d", i), "Strip " + i, i));
+        }
+        long versionBefore = airportIndex.version();
+
+        // Act
+        IngestionReport report = dataLoader.diffLoadAirportDataFromInputStream(json(airports.toArray(new String[0])));
+
+        // Assert
+        assertEquals(30, report.getInserted());
+        assertEquals(1, report.getUpdated());
+        assertEquals(2, report.getDeleted());
+        assertEquals(versionBefore + 1, airportIndex.version());
+        assertEquals(31, airportIndex.all().size());
+        assertEquals(14, airportIndex.snapshot().get("KJFK").getElevation());
+        assertNull(airportIndex.snapshot().get("EGLL"));
+        assertEquals("John F Kennedy International", airportIndex.sorted("name").get(0).getName());
+    }
+
+    @Test
+    void loadCompressed_Gzip_ShouldUpsertRows() throws Exception {
+        // Arrange
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+            json(airport("EGLL", "London Heathrow", 83), airport("EDDF", "Frankfurt am Main", 364)).transferTo(gzip);
+        }
+
+        // Act
+        long loaded = dataLoader.loadAirportDataFromInputStream(new ByteArrayInputStream(compressed.toByteArray()), "gzip");
+
+        // Assert
+        assertEquals(2, loaded);
+        assertEquals(4, airportRepository.count());
+        assertEquals("London Heathrow", airportRepository.findById("EGLL").orElseThrow().getName());
+        assertEquals(4, airportIndex.all().size());
+    }
+
+    @Test
+    void loadUpload_WhileTheBodyIsStillArriving_ShouldNotBlockSingleRowWrites() throws Exception {
+        // Arrange
+        byte[] body = json(airport("EDDF", "Frankfurt am Main", 364)).readAllBytes();
+        PipedOutputStream client = new PipedOutputStream();
+        PipedInputStream received = new PipedInputStream(client);
+        client.write(body, 0, body.length / 2);
+        CompletableFuture<Long> upload = CompletableFuture.supplyAsync(
+                () -> dataLoader.loadAirportDataFromUpload(received, null, AirportFormat.JSON));
+        while (received.available() > 0) {
+            Thread.onSpinWait();
+        }
+
+        // Act
+        // a load holding every ICAO stripe while it waits for the rest of the body would block this insert
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> airportService.addAirport(validAirport("LFPG")));
+        client.write(body, body.length / 2, body.length - body.length / 2);
+        client.close();
+
+        // Assert
+        assertEquals(1, upload.get(5, TimeUnit.SECONDS));
+        assertEquals(5, airportRepository.count());
+        assertEquals(5, airportIndex.all().size());
+    }
+
+    @Test
+    void loadUpload_OverTheSizeLimit_ShouldWriteNothing() {
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> dataLoader.loadAirportDataFromUpload(json(airport("EDDF", "Frankfurt am Main", 364)), null,
+                        AirportFormat.JSON, 16));
+        assertEquals("Upload is larger than the 16 bytes allowed.", exception.getMessage());
+        assertEquals(3, airportRepository.count());
+    }
+
+    @Test
+    void loadCompressed_UnknownEncoding_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> dataLoader.loadAirportDataFromInputStream(json(), "br"));
+    }
+
+    @Test
+    void loadCsv_QuotedFieldsAndAnyColumnOrder_ShouldUpsertRows() {
+        // Arrange
+        String csv = "tz,elevation,name,icao,country,lat,lon,city\r\n"
+                + "Europe/London,83,\"London Heathrow, \"\"LHR\"\"\",EGLL,GB,51.4706,-0.461941,London\r\n"
+                + "Europe/Berlin,364,Frankfurt am Main,EDDF,DE,50.026,8.543,\r\n";
+
+        // Act
+        long loaded = dataLoader.loadAirportDataFromInputStream(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), null, AirportFormat.CSV);
+
+        // Assert
+        assertEquals(2, loaded);
+        Airport heathrow = airportRepository.findById("EGLL").orElseThrow();
+        assertEquals("London Heathrow, \"LHR\"", heathrow.getName());
+        assertEquals(51.4706, heathrow.getLat());
+        assertEquals(-0.461941, heathrow.getLon());
+        assertEquals("", airportRepository.findById("EDDF").orElseThrow().getState());
+        assertEquals(4, airportIndex.all().size());
+    }
+
+    @Test
+    void loadNdjson_ShouldUpsertRows() {
+        // Arrange
+        String ndjson = "{\"icao\": \"EDDF\", \"name\": \"Frankfurt am Main\", \"country\": \"DE\", "
+                + "\"elevation\": 364, \"lat\": 50.026, \"lon\": 8.543, \"tz\": \"Europe/Berlin\"}\n"
+                + "\n"
+                + "{\"icao\": \"KLAX\", \"name\": \"LAX\", \"country\": \"US\", "
+                + "\"elevation\": 125, \"lat\": 33.9, \"lon\": -118.4, \"tz\": \"America/Los_Angeles\"}\n";
+
+        // Act
+        long loaded = dataLoader.loadAirportDataFromInputStream(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), null, AirportFormat.NDJSON);
+
+        // Assert
+        assertEquals(2, loaded);
+        assertEquals(4, airportRepository.count());
+        assertEquals("LAX", airportRepository.findById("KLAX").orElseThrow().getName());
+    }
+
+    @Test
+    void loadCsv_InvalidRecord_ShouldRollBackAndThrowException() {
+        // Arrange
+        String csv = "icao,name,country,elevation,lat,lon,tz\n"
+                + "EDDF,Frankfurt am Main,DE,364,50.026,8.543,Europe/Berlin\n"
+                + "eddm,Munich,DE,1487,48.35,11.78,Europe/Berlin\n";
+
+        // Act
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> dataLoader.loadAirportDataFromInputStream(
+                        new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), null, AirportFormat.CSV));
+
+        // Assert
+        assertTrue(exception.getMessage().contains("Record 2"));
+        assertEquals(3, airportRepository.count());
+        assertFalse(airportRepository.existsById("EDDF"));
+    }
+
+    private static String airport(String icao, String name, int elevation) {
+        return "\"" + icao + "\": {\"icao\": \"" + icao + "\", \"iata\": \"\", \"name\": \"" + name
+                + "\", \"city\": \"\", \"state\": \"\", \"country\": \"XX\", \"elevation\": " + elevation
+                + ", \"lat\": 1.0, \"lon\": 2.0, \"tz\": \"UTC\"}";
+    }
+
+    private static Airport validAirport(String icao) {
+        Airport airport = new Airport();
+        airport.setIcao(icao);
+        airport.setName("Charles de Gaulle");
+        airport.setCountry("FR");
+        airport.setTz("Europe/Paris");
+        airport.setElevation(392);
+        airport.setLat(49.0128);
+        airport.setLon(2.55);
+        return airport;
+    }
+
+    private static InputStream json(String... airports) {
+        return new ByteArrayInputStream(("{" + String.join(",", airports) + "}").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,107 @@
+package com.airport.airportservice.diagnostics;
+
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.PersistenceReport;
+import com.airport.airportservice.repository.AirportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the Hibernate hooks against the real H2 table, with the request scope opened by hand
+@SpringBootTest
+class PersistenceDiagnosticsTest {
+
+    @Autowired
+    private PersistenceDiagnostics diagnostics;
+
+    @Autowired
+    private AirportRepository airportRepository;
+
+    @BeforeEach
+    void setUp() {
+        airportRepository.deleteAll();
+        diagnostics.reset();
+    }
+
+    @Test
+    void lookupsInALoop_ShouldBeCountedAndReportedAsNPlusOne() {
+        // Arrange
+        List<Airport> airports = airports(12);
+        airportRepository.saveAll(airports);
+
+        // Act
+        diagnostics.requestStarted("GET /test/loop");
+        for (Airport airport : airports) {
+            assertTrue(airportRepository.findById(airport.getIcao()).isPresent());
+        }
+        diagnostics.requestEnded();
+
+        // Assert
+        PersistenceReport.EndpointTotals totals = diagnostics.endpointTotals().get("GET /test/loop");
+        assertEquals(1, totals.getRequests());
+        assertEquals(12, totals.getStatements());
+        assertEquals(12, totals.getEntitiesLoaded());
+        assertEquals(1, totals.getSuspectedNPlusOne());
+        PersistenceReport.RepeatedSelect suspect = diagnostics.suspectedNPlusOne().get(0);
+        assertEquals("GET /test/loop", suspect.getEndpoint());
+        assertEquals(12, suspect.getExecutions());
+        assertTrue(suspect.getSql().startsWith("select "));
+    }
+
+    @Test
+    void saveAll_ShouldReportJdbcBatches() {
+        // Arrange
+        List<Airport> airports = airports(50);
+
+        // Act
+        diagnostics.requestStarted("POST /test/save-all");
+        airportRepository.saveAll(airports);
+        diagnostics.requestEnded();
+
+        // Assert
+        PersistenceReport.EndpointTotals totals = diagnostics.endpointTotals().get("POST /test/save-all");
+        assertTrue(totals.getBatches() > 0);
+        assertEquals(1, diagnostics.recentRequests().size());
+        assertEquals(totals.getBatches(), diagnostics.recentRequests().get(0).getBatches());
+    }
+
+    @Test
+    void statementsOverThreshold_ShouldGoToSlowLog() {
+        // Arrange
+        DiagnosticsProperties properties = new DiagnosticsProperties();
+        properties.setSlowQueryMs(0);
+        PersistenceDiagnostics zeroThreshold = new PersistenceDiagnostics(properties);
+
+        // Act
+        zeroThreshold.requestStarted("GET /test/slow");
+        zeroThreshold.statementPrepared("select * from airport where icao in (?, ?, ?)");
+        zeroThreshold.executionStarted();
+        zeroThreshold.executionEnded(false);
+        zeroThreshold.requestEnded();
+
+        // Assert
+        assertEquals(1, zeroThreshold.slowStatements().size());
+        assertEquals("GET /test/slow", zeroThreshold.slowStatements().get(0).getEndpoint());
+        assertFalse(zeroThreshold.slowStatements().get(0).isBatch());
+        assertEquals("select * from airport where icao in (?...)",
+                PersistenceDiagnostics.shape("select *\n  from airport where icao in (?,?, ?)"));
+    }
+
+    private static List<Airport> airports(int count) {
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Airport airport = new Airport();
+            airport.setIcao(String.format(Locale.ROOT, "D%03d", i));
+            airport.setName("Diagnostics " + i);
+            airports.add(airport);
+        }
+        return airports;
+    }
+}
@@ -0,0 +1,88 @@
+package com.airport.airportservice.geo;
+
+import com.airport.airportservice.model.Airport;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DistanceKernelTest {
+
+    @Test
+    void scalarKernel_ShouldMatchHaversine() {
+        assertMatchesHaversine(new ScalarDistanceKernel());
+    }
+
+    @Test
+    void vectorKernel_ShouldMatchHaversine() {
+        // only with -Pvector-api
+        DistanceKernel kernel = DistanceKernel.best();
+        assumeTrue(kernel.name().startsWith("vector"));
+        assertMatchesHaversine(kernel);
+    }
+
+    @Test
+    void matrix_MissingCoordinates_ShouldWriteNull() throws Exception {
+        // Arrange
+        UnitVectors unitVectors = new UnitVectors();
+        unitVectors.onReload(List.of(airport("KJFK", 40.6398, -73.7789), airport("XXXX", null, null)));
+
+        // Act
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        unitVectors.matrix(List.of("KJFK"), List.of("KJFK", "XXXX")).writeJson(json);
+
+        // Assert
+        assertEquals("{\"unit\":\"km\",\"from\":[\"KJFK\"],\"to\":[\"KJFK\",\"XXXX\"],\"distances\":[[0.0,null]]}",
+                json.toString());
+    }
+
+    // Random pairs all over the globe plus pairs a few hundred metres apart, within 0.1 km of the double precision result
+    private static void assertMatchesHaversine(DistanceKernel kernel) {
+        // Arrange
+        Random random = new Random(42);
+        List<Airport> airports = new ArrayList<>();
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 203; i++) {
+            double lat = i % 2 == 0 ? random.nextDouble() * 180 - 90 : airports.get(i - 1).getLat() + 0.003;
+            double lon = i % 2 == 0 ? random.nextDouble() * 360 - 180 : airports.get(i - 1).getLon();
+            airports.add(airport("A" + i, Math.min(90, lat), lon));
+            codes.add("A" + i);
+        }
+        UnitVectors unitVectors = new UnitVectors();
+        unitVectors.onReload(airports);
+        UnitVectors.Points points = unitVectors.gather(codes);
+        float[] row = new float[points.size()];
+
+        for (int i = 0; i < airports.size(); i++) {
+            // Act
+            kernel.row(points.x[i], points.y[i], points.z[i], points, row);
+
+            // Assert
+            for (int j = 0; j < airports.size(); j++) {
+                assertEquals(haversine(airports.get(i), airports.get(j)), row[j], 0.1,
+                        kernel.name() + " " + codes.get(i) + " -> " + codes.get(j));
+            }
+        }
+    }
+
+    private static double haversine(Airport a, Airport b) {
+        double dLat = Math.toRadians(b.getLat() - a.getLat());
+        double dLon = Math.toRadians(b.getLon() - a.getLon());
+        double h = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(a.getLat())) * Math.cos(Math.toRadians(b.getLat())) * Math.pow(Math.sin(dLon / 2), 2);
+        return DistanceKernel.EARTH_DIAMETER_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    private static Airport airport(String icao, Double lat, Double lon) {
+        Airport airport = new Airport();
+        airport.setIcao(icao);
+        airport.setLat(lat);
+        airport.setLon(lon);
+        return airport;
+    }
+}
@@ -0,0 +1,107 @@
+package com.airport.airportservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Outcome of the measured phase of a load test, also the format of the stored baseline. Latencies are in
+// milliseconds, histograms record microseconds.
+record LoadReport(int airports, int clients, String mix, double seconds, double throughput, long errors,
+                  Map<String, OperationReport> operations) {
+
+    static final String ALL = "all";
+
+    // A p99 below a few milliseconds moves by more than the allowed ratio from scheduling noise alone, it only
+    // counts as a regression when it also grew by this much
+    static final double P99_SLACK_MILLIS = 1.0;
+    // Operations with fewer samples have no meaningful p99 and are not gated
+    static final long MIN_GATED_SAMPLES = 200;
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    record OperationReport(long count, double throughput, double p50Millis, double p90Millis, double p99Millis,
+                           double p999Millis, double maxMillis) {
+
+        static OperationReport of(Histogram micros, double seconds) {
+            return new OperationReport(micros.getTotalCount(), micros.getTotalCount() / seconds,
+                    millis(micros.getValueAtPercentile(50)), millis(micros.getValueAtPercentile(90)),
+                    millis(micros.getValueAtPercentile(99)), millis(micros.getValueAtPercentile(99.9)),
+                    millis(micros.getMaxValue()));
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+
+    // histograms is keyed by operation label, the "all" row is merged from them
+    static LoadReport of(LoadTestSettings settings, Map<String, Histogram> histograms, double seconds, long errors) {
+        Map<String, OperationReport> operations = new LinkedHashMap<>();
+        Histogram all = new Histogram(3);
+        histograms.forEach((operation, micros) -> {
+            operations.put(operation, OperationReport.of(micros, seconds));
+            all.add(micros);
+        });
+        operations.put(ALL, OperationReport.of(all, seconds));
+        return new LoadReport(settings.airports(), settings.clients(), settings.mixLabel(), seconds,
+                all.getTotalCount() / seconds, errors, operations);
+    }
+
+    // Numbers are only comparable when the dataset, the number of clients and the mix are the same
+    boolean comparableWith(LoadReport baseline) {
+        return airports == baseline.airports && clients == baseline.clients && mix.equals(baseline.mix);
+    }
+
+    // One line per gate that failed, empty when the run is within the allowed regression of the baseline
+    List<String> regressionsAgainst(LoadReport baseline, double maxP99Regression, double maxThroughputRegression) {
+        List<String> regressions = new ArrayList<>();
+        double minThroughput = baseline.throughput * (1 - maxThroughputRegression);
+        if (throughput < minThroughput) {
+            regressions.add(String.format("throughput %.1f req/s is below %.1f (baseline %.1f, -%.0f%% allowed)",
+                    throughput, minThroughput, baseline.throughput, maxThroughputRegression * 100));
+        }
+        operations.forEach((operation, current) -> {
+            OperationReport before = baseline.operations.get(operation);
+            if (before == null || current.count() < MIN_GATED_SAMPLES || before.count() < MIN_GATED_SAMPLES) {
+                return;
+            }
+            double maxP99 = Math.max(before.p99Millis() * (1 + maxP99Regression), before.p99Millis() + P99_SLACK_MILLIS);
+            if (current.p99Millis() > maxP99) {
+                regressions.add(String.format("%s p99 %.2f ms is above %.2f ms (baseline %.2f ms, +%.0f%% allowed)",
+                        operation, current.p99Millis(), maxP99, before.p99Millis(), maxP99Regression * 100));
+            }
+        });
+        return regressions;
+    }
+
+    void print(PrintStream out) {
+        out.printf("%d airports, %d clients, %s, %.1f s measured, %d errors%n", airports, clients, mix, seconds, errors);
+        out.printf("%-10s %9s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        operations.forEach((operation, report) -> out.printf("%-10s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                operation, report.count(), report.throughput(), report.p50Millis(), report.p90Millis(),
+                report.p99Millis(), report.p999Millis(), report.maxMillis()));
+    }
+
+    void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        JSON.writeValue(file.toFile(), this);
+    }
+
+    static Optional<LoadReport> read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(JSON.readValue(file.toFile(), LoadReport.class));
+    }
+}
@@ -0,0 +1,84 @@
+package com.airport.airportservice.loadtest;
+
+import com.airport.airportservice.loadtest.LoadTestSettings.Operation;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The gate logic of the load test, which itself only runs with -Pload-test
+class LoadReportTest {
+
+    @Test
+    void regressionsAgainst_ShouldFlagSlowerP99AndLowerThroughput(@TempDir Path dir) throws Exception {
+        // Arrange
+        LoadTestSettings settings = settings("lookup=80,write=20");
+        LoadReport baseline = LoadReport.of(settings, Map.of("lookup", latencies(1000, 2_000), "write",
+                latencies(1000, 20_000)), 10, 0);
+        baseline.write(dir.resolve("baseline.json"));
+        LoadReport stored = LoadReport.read(dir.resolve("baseline.json")).orElseThrow();
+
+        // Act
+        // lookup p99 2 ms -> 2.9 ms is within the 1 ms slack, write p99 20 ms -> 30 ms is not
+        List<String> same = LoadReport.of(settings, Map.of("lookup", latencies(1000, 2_000), "write",
+                latencies(1000, 20_000)), 10, 0).regressionsAgainst(stored, 0.25, 0.15);
+        List<String> slower = LoadReport.of(settings, Map.of("lookup", latencies(1000, 2_900), "write",
+                latencies(1000, 30_000)), 10, 0).regressionsAgainst(stored, 0.25, 0.15);
+        List<String> fewer = LoadReport.of(settings, Map.of("lookup", latencies(1000, 2_000), "write",
+                latencies(1000, 20_000)), 20, 0).regressionsAgainst(stored, 0.25, 0.15);
+
+        // Assert
+        assertEquals(baseline, stored);
+        assertTrue(same.isEmpty());
+        // the merged "all" row slows down with write
+        assertEquals(2, slower.size());
+        assertTrue(slower.get(0).startsWith("write p99") || slower.get(1).startsWith("write p99"));
+        assertTrue(slower.stream().noneMatch(line -> line.startsWith("lookup")));
+        assertEquals(1, fewer.size());
+        assertTrue(fewer.get(0).startsWith("throughput"));
+        assertFalse(LoadReport.of(settings("lookup=80,write=10"), Map.of(), 10, 0).comparableWith(stored));
+    }
+
+    @Test
+    void parseMix_ShouldFollowTheWeights() {
+        // Arrange
+        LoadTestSettings settings = settings("write=1, lookup=3, search=0");
+        Map<Operation, Integer> picked = new EnumMap<>(Operation.class);
+        Random random = new Random(3);
+
+        // Act
+        for (int i = 0; i < 40_000; i++) {
+            picked.merge(settings.pick(random), 1, Integer::sum);
+        }
+
+        // Assert
+        assertEquals("lookup=3,write=1", settings.mixLabel());
+        assertEquals(30_000, picked.get(Operation.LOOKUP), 500);
+        assertEquals(10_000, picked.get(Operation.WRITE), 500);
+        assertFalse(picked.containsKey(Operation.SEARCH));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestSettings.parseMix("lookup=1,scan=2"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestSettings.parseMix("lookup"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestSettings.parseMix("lookup=0"));
+    }
+
+    private static LoadTestSettings settings(String mix) {
+        return new LoadTestSettings(1000, 4, 0, 10, LoadTestSettings.parseMix(mix), Path.of("baseline.json"),
+                0.25, 0.15, false, 1);
+    }
+
+    // count samples spread evenly up to highest microseconds
+    private static Histogram latencies(int count, long highestMicros) {
+        Histogram histogram = new Histogram(3);
+        for (int i = 1; i <= count; i++) {
+            histogram.recordValue(highestMicros * i / count);
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,293 @@
+package com.airport.airportservice.loadtest;
+
+import com.airport.airportservice.config.DataLoader;
+import com.airport.airportservice.index.AirportIndex;
+import com.airport.airportservice.loadtest.LoadTestSettings.Operation;
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.repository.AirportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Closed-loop load test: every client sends a request, waits for the whole response and sends the next one, picking
+// each operation from the configured mix. Latency is what a client saw, recorded into one HdrHistogram per operation.
+// With a closed loop a slow response also delays that client's next request, so the p99 is the one of this
+// population of clients and not of a fixed arrival rate, which is what makes runs comparable with each other.
+// The clients run in the same JVM as the app, a baseline is only meaningful on the machine it was recorded on.
+//   mvn -Pload-test test                                  compare against the stored baseline
+//   mvn -Pload-test test -Dloadtest.update-baseline=true   record a new baseline
+// The report, and per operation .hgrm percentile files, are written to target/load-test.
+@Tag("load-test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        // every client connects from the same address, a per client limit would throttle them all as one
+        "airport.admission.search.client-rate-per-second=0"
+})
+class LoadTest {
+
+    private static final Path OUTPUT = Path.of("target/load-test");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final String[] NAME_WORDS = {"Lake", "River", "County", "Valley", "Mountain", "Harbor", "Spring",
+            "Pine", "Cedar", "Mesa", "Prairie", "Bay", "Ridge", "Creek", "Island", "Canyon"};
+    private static final String[] NAME_KINDS = {"Airport", "Field", "Airpark", "Municipal Airport",
+            "Regional Airport", "International Airport", "Heliport", "Airstrip"};
+    private static final String[] CITY_STARTS = {"Ash", "Brook", "Clear", "Dun", "Elm", "Fair", "Glen", "Hart",
+            "Iron", "Kings", "Lin", "Marl", "North", "Oak", "Port", "Red", "Stone", "West"};
+    private static final String[] CITY_ENDS = {"ford", "ton", "field", "wood", "ville", "burg", "haven", "dale",
+            "more", "ley"};
+    private static final String[] COUNTRIES = {"US", "CA", "MX", "BR", "AR", "GB", "FR", "DE", "ES", "IT", "NO",
+            "RU", "CN", "IN", "JP", "AU", "NZ", "ZA", "KE", "EG"};
+    private static final String[] TIME_ZONES = {"America/New_York", "America/Chicago", "America/Denver",
+            "America/Los_Angeles", "America/Sao_Paulo", "Europe/London", "Europe/Paris", "Europe/Moscow",
+            "Asia/Shanghai", "Asia/Kolkata", "Asia/Tokyo", "Australia/Sydney", "Pacific/Auckland",
+            "Africa/Johannesburg", "Africa/Nairobi", "Africa/Cairo"};
+    private static final String[] SORT_FIELDS = {"name", "city", "country"};
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DataLoader dataLoader;
+
+    @Autowired
+    private AirportRepository airportRepository;
+
+    @Autowired
+    private AirportIndex airportIndex;
+
+    @Test
+    void mixedLoad_ShouldStayWithinBaseline() throws Exception {
+        // Arrange
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        List<Airport> airports = syntheticAirports(settings.airports(), new Random(settings.seed()));
+        Map<String, Airport> keyed = new LinkedHashMap<>();
+        airports.forEach(airport -> keyed.put(airport.getIcao(), airport));
+        airportRepository.deleteAll();
+        airportIndex.reload();
+        dataLoader.loadAirportDataFromInputStream(new ByteArrayInputStream(JSON.writeValueAsBytes(keyed)));
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        // Act
+        // which write slots of each client hold an airport, carried from the warmup into the measured run
+        boolean[][] written = new boolean[settings.clients()][LoadTestSettings.WRITE_SLOTS];
+        run(settings, http, airports, written, settings.warmupSeconds(), settings.seed());
+        Run measured = run(settings, http, airports, written, settings.durationSeconds(), settings.seed() + 1);
+        LoadReport report = LoadReport.of(settings, measured.histograms(), measured.seconds(), measured.errors());
+
+        report.print(System.out);
+        report.write(OUTPUT.resolve("report.json"));
+        for (Map.Entry<String, Histogram> entry : measured.histograms().entrySet()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(OUTPUT.resolve(entry.getKey() + ".hgrm")))) {
+                entry.getValue().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+
+        // Assert
+        assertEquals(0, measured.errors(), "Requests failed: " + measured.errorSamples());
+        if (settings.updateBaseline()) {
+            report.write(settings.baseline());
+            System.out.println("Baseline written to " + settings.baseline());
+            return;
+        }
+        Optional<LoadReport> baseline = LoadReport.read(settings.baseline());
+        if (baseline.isEmpty() || !report.comparableWith(baseline.get())) {
+            System.out.println("No baseline for " + settings.airports() + " airports, " + settings.clients()
+                    + " clients and mix " + settings.mixLabel() + " in " + settings.baseline()
+                    + ", nothing to compare with. Record one with -Dloadtest.update-baseline=true");
+            return;
+        }
+        List<String> regressions = report.regressionsAgainst(baseline.get(), settings.maxP99Regression(),
+                settings.maxThroughputRegression());
+        assertTrue(regressions.isEmpty(), "Regressed against " + settings.baseline() + ":\n"
+                + String.join("\n", regressions));
+    }
+
+    private record Run(Map<String, Histogram> histograms, double seconds, long errors, List<String> errorSamples) {
+    }
+
+    private record ClientResult(Map<Operation, Histogram> histograms, long errors, List<String> errorSamples) {
+    }
+
+    private Run run(LoadTestSettings settings, HttpClient http, List<Airport> airports, boolean[][] written,
+                    int seconds, long seed) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(settings.clients());
+        try {
+            long start = System.nanoTime();
+            long deadline = start + Duration.ofSeconds(seconds).toNanos();
+            List<Callable<ClientResult>> tasks = new ArrayList<>();
+            for (int i = 0; i < settings.clients(); i++) {
+                Random random = new Random(seed * 31 + i);
+                int client = i;
+                tasks.add(() -> client(settings, http, airports, client, written[client], random, deadline));
+            }
+            List<Future<ClientResult>> results = clients.invokeAll(tasks);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            Map<String, Histogram> histograms = new LinkedHashMap<>();
+            long errors = 0;
+            List<String> errorSamples = new ArrayList<>();
+            for (Future<ClientResult> future : results) {
+                ClientResult result = future.get();
+                result.histograms().forEach((operation, micros) ->
+                        histograms.computeIfAbsent(operation.label(), k -> new Histogram(3)).add(micros));
+                errors += result.errors();
+                errorSamples.addAll(result.errorSamples());
+            }
+            return new Run(histograms, elapsed, errors, errorSamples.subList(0, Math.min(10, errorSamples.size())));
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    // One client, runs until the deadline. A request that fails or answers with anything but 2xx counts as an error
+    private ClientResult client(LoadTestSettings settings, HttpClient http, List<Airport> airports, int client,
+                                boolean[] written, Random random, long deadline) throws Exception {
+        Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        for (Operation operation : settings.mix().keySet()) {
+            histograms.put(operation, new Histogram(3));
+        }
+        long errors = 0;
+        List<String> errorSamples = new ArrayList<>();
+        while (System.nanoTime() < deadline) {
+            Operation operation = settings.pick(random);
+            HttpRequest request = request(operation, airports, client, written, random);
+            long sent = System.nanoTime();
+            int status;
+            try {
+                status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            }
+            histograms.get(operation).recordValue((System.nanoTime() - sent) / 1000);
+            if (status < 200 || status >= 300) {
+                errors++;
+                if (errorSamples.size() < 10) {
+                    errorSamples.add(request.method() + " " + request.uri().getRawPath() + " -> " + status);
+                }
+            }
+        }
+        return new ClientResult(histograms, errors, errorSamples);
+    }
+
+    private HttpRequest request(Operation operation, List<Airport> airports, int client, boolean[] written,
+                                Random random) throws Exception {
+        Airport airport = airports.get(random.nextInt(airports.size()));
+        return switch (operation) {
+            case LOOKUP -> get("/" + airport.getIcao());
+            case SEARCH -> random.nextInt(3) == 0
+                    ? get("/fuzzy-search?query=" + encode(misspell(airport.getCity(), random)))
+                    : get("/search?query=" + encode(NAME_WORDS[random.nextInt(NAME_WORDS.length)] + " "
+                    + airport.getCity()));
+            case PAGE -> get("/page?size=20&page=" + random.nextInt(Math.max(1, airports.size() / 20))
+                    + "&sortBy=" + SORT_FIELDS[random.nextInt(SORT_FIELDS.length)]);
+            case ANALYTICS -> switch (random.nextInt(4)) {
+                case 0 -> get("/elevation-rollup?groupBy=country,tz");
+                case 1 -> get("/elevation-rollup?groupBy=state&country=" + airport.getCountry());
+                case 2 -> get("/elevation-distribution?groupBy=tz");
+                default -> get("/top?field=city&k=10");
+            };
+            case WRITE -> write(airports, client, written, random);
+        };
+    }
+
+    // Each client inserts and deletes airports in its own slots, ICAO codes right after the dataset, so writes never
+    // conflict and the row count stays within clients * WRITE_SLOTS of the dataset size
+    private HttpRequest write(List<Airport> airports, int client, boolean[] written, Random random) throws Exception {
+        int slot = random.nextInt(LoadTestSettings.WRITE_SLOTS);
+        String icao = icao(airports.size() + client * LoadTestSettings.WRITE_SLOTS + slot);
+        written[slot] = !written[slot];
+        if (!written[slot]) {
+            return HttpRequest.newBuilder(uri("/" + icao)).timeout(Duration.ofSeconds(30)).DELETE().build();
+        }
+        Airport airport = copy(airports.get(random.nextInt(airports.size())));
+        airport.setIcao(icao);
+        airport.setElevation(random.nextInt(9000));
+        return HttpRequest.newBuilder(uri(""))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(airport)))
+                .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/api/airports" + path);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    // One letter replaced, within the fuzzy search's default edit distance
+    private static String misspell(String word, Random random) {
+        char[] letters = word.toCharArray();
+        letters[1 + random.nextInt(letters.length - 1)] = (char) ('a' + random.nextInt(26));
+        return new String(letters);
+    }
+
+    private static Airport copy(Airport airport) {
+        return new Airport(airport.getIcao(), airport.getIata(), airport.getName(), airport.getCity(),
+                airport.getState(), airport.getCountry(), airport.getElevation(), airport.getLat(), airport.getLon(),
+                airport.getTz(), null);
+    }
+
+    // 0 -> "0000", base 36
+    private static String icao(int index) {
+        String code = Integer.toString(index, 36).toUpperCase(Locale.ROOT);
+        return "0".repeat(4 - code.length()) + code;
+    }
+
+    // Valid rows with a realistic spread: a few hundred cities and zones, tens of countries, a third with IATA codes
+    static List<Airport> syntheticAirports(int count, Random random) {
+        List<Airport> airports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String icao = icao(i);
+            String city = CITY_STARTS[random.nextInt(CITY_STARTS.length)] + CITY_ENDS[random.nextInt(CITY_ENDS.length)];
+            String name = NAME_WORDS[random.nextInt(NAME_WORDS.length)] + " " + city + " "
+                    + NAME_KINDS[random.nextInt(NAME_KINDS.length)];
+            String iata = random.nextInt(3) == 0 ? icao.substring(1) : "";
+            String country = COUNTRIES[random.nextInt(COUNTRIES.length)];
+            airports.add(new Airport(icao, iata, name, city, "S" + random.nextInt(40), country,
+                    random.nextInt(9000), random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180,
+                    TIME_ZONES[random.nextInt(TIME_ZONES.length)], null));
+        }
+        return airports;
+    }
+}
@@ -0,0 +1,107 @@
+package com.airport.airportservice.loadtest;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+// Size and shape of a load test run, read from system properties so they can be given on the Maven command line:
+//   mvn -Pload-test test -Dloadtest.clients=32 -Dloadtest.duration-seconds=60
+// The defaults are what the stored baseline was recorded with, a run with other values is not compared to it.
+record LoadTestSettings(int airports, int clients, int warmupSeconds, int durationSeconds, Map<Operation, Integer> mix,
+                        Path baseline, double maxP99Regression, double maxThroughputRegression, boolean updateBaseline,
+                        long seed) {
+
+    static final String DEFAULT_MIX = "lookup=50,search=15,page=10,analytics=15,write=10";
+
+    // 4 character ICAO codes, base 36
+    static final int MAX_AIRPORTS = 36 * 36 * 36 * 36;
+    // ICAO codes per client, after the dataset's, that its writes insert and delete
+    static final int WRITE_SLOTS = 64;
+
+    enum Operation {
+        // GET /{icao}
+        LOOKUP,
+        // GET /search and /fuzzy-search
+        SEARCH,
+        // GET /page sorted by name, city or country
+        PAGE,
+        // GET /elevation-rollup, /elevation-distribution and /top
+        ANALYTICS,
+        // POST of a new airport or DELETE of one inserted before, in slots of their own per client
+        WRITE;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    static LoadTestSettings fromSystemProperties() {
+        LoadTestSettings settings = new LoadTestSettings(
+                Integer.getInteger("loadtest.airports", 20_000),
+                Integer.getInteger("loadtest.clients", 16),
+                Integer.getInteger("loadtest.warmup-seconds", 10),
+                Integer.getInteger("loadtest.duration-seconds", 30),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                Path.of(System.getProperty("loadtest.baseline", "src/test/resources/load-test/baseline.json")),
+                Double.parseDouble(System.getProperty("loadtest.max-p99-regression", "0.25")),
+                Double.parseDouble(System.getProperty("loadtest.max-throughput-regression", "0.15")),
+                Boolean.getBoolean("loadtest.update-baseline"),
+                Long.getLong("loadtest.seed", 42));
+        if (settings.clients < 1 || settings.durationSeconds < 1 || settings.warmupSeconds < 0) {
+            throw new IllegalArgumentException("loadtest.clients and loadtest.duration-seconds must be positive.");
+        }
+        int maxAirports = MAX_AIRPORTS - settings.clients * WRITE_SLOTS;
+        if (settings.airports < 1 || settings.airports > maxAirports) {
+            throw new IllegalArgumentException("loadtest.airports must be between 1 and " + maxAirports
+                    + " with " + settings.clients + " clients.");
+        }
+        return settings;
+    }
+
+    // "lookup=50,search=15,write=10", weights are relative and operations left out are not run
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            Operation operation;
+            try {
+                operation = Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown operation '" + pair[0].trim() + "' in loadtest.mix.");
+            }
+            int weight = pair.length == 2 ? Integer.parseInt(pair[1].trim()) : -1;
+            if (weight < 0) {
+                throw new IllegalArgumentException("loadtest.mix entries look like lookup=50, got '" + part + "'.");
+            }
+            if (weight > 0) {
+                weights.put(operation, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix needs at least one operation with a positive weight.");
+        }
+        return weights;
+    }
+
+    // Normalized "lookup=50,search=15,..." in declaration order, for telling whether two runs had the same mix
+    String mixLabel() {
+        return mix.entrySet().stream()
+                .map(entry -> entry.getKey().label() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+
+    Operation pick(Random random) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int ticket = random.nextInt(total);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            ticket -= entry.getValue();
+            if (ticket < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+}
@@ -0,0 +1,136 @@
+package com.airport.airportservice.search;
+
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.SearchResults;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FullTextIndexTest {
+
+    @Test
+    void search_NewYork_ShouldRankWholeCityMatchFirst() {
+        // Arrange
+        FullTextIndex index = new FullTextIndex();
+        index.onReload(List.of(
+                airport("NY01", "", "New York Mills Airstrip", "New York Mills", "New York"),
+                airport("KLGA", "LGA", "La Guardia Airport", "New York", "New York"),
+                airport("KJFK", "JFK", "John F Kennedy International Airport", "New York", "New York"),
+                airport("KALB", "ALB", "Albany International Airport", "Albany", "New York"),
+                airport("EGLL", "LHR", "London Heathrow Airport", "London", "England")));
+
+        // Act
+        SearchResults newYork = index.search("new york", 0, 10);
+        SearchResults jfk = index.search("JFK", 0, 10);
+        SearchResults icao = index.search("kjfk", 0, 10);
+
+        // Assert
+        assertEquals(List.of("KLGA", "KJFK", "NY01", "KALB"), icaos(newYork));
+        assertEquals(4, newYork.getTotalHits());
+        assertTrue(newYork.isTotalHitsExact());
+        assertTrue(newYork.getHits().get(1).getScore() > newYork.getHits().get(2).getScore());
+        assertEquals(List.of("KJFK"), icaos(jfk));
+        assertEquals(List.of("KJFK"), icaos(icao));
+        assertEquals(List.of("NY01"), icaos(index.search("mills", 0, 10)));
+    }
+
+    @Test
+    void pagesWithPruning_ShouldMatchTheFullRanking() {
+        // Arrange
+        Random random = new Random(11);
+        String[] vocabulary = {"Field", "Airport", "Municipal", "Regional", "County", "Lake", "River", "Valley", "Spring"};
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int words = 1 + random.nextInt(5); words > 0; words--) {
+                name.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+            }
+            airports.add(airport(String.format("P%03d", i), i % 3 == 0 ? String.format("P%02d", i) : "",
+                    name.toString(), vocabulary[random.nextInt(vocabulary.length)], "State"));
+        }
+        FullTextIndex index = new FullTextIndex();
+        index.onReload(airports);
+
+        for (String query : List.of("lake river", "county spring valley", "field airport municipal regional", "lake")) {
+            // nothing is pruned while the heap holds every airport
+            SearchResults full = index.search(query, 0, 100);
+            assertTrue(full.isTotalHitsExact());
+
+            // Act
+            List<String> paged = new ArrayList<>();
+            for (int page = 0; page * 3 < full.getHits().size(); page++) {
+                SearchResults result = index.search(query, page, 3);
+                assertTrue(result.getTotalHits() <= full.getTotalHits());
+                if (result.isTotalHitsExact()) {
+                    assertEquals(full.getTotalHits(), result.getTotalHits());
+                }
+                paged.addAll(icaos(result));
+            }
+
+            // Assert
+            assertEquals(icaos(full), paged, query);
+        }
+    }
+
+    @Test
+    void writes_ShouldUpdateHitsAndDocumentFrequencies() {
+        // Arrange
+        FullTextIndex index = new FullTextIndex();
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            airports.add(airport(String.format("B%04d", i), "", "Station " + i, "Town" + i % 10, ""));
+        }
+        index.onReload(airports);
+
+        // Act
+        for (int i = 0; i < 2500; i++) {
+            index.onRemove(airports.get(i));
+        }
+        index.onRemove(airport("B2999", "", "Station 2999", "Town9", ""));
+        index.onAdd(airport("B2999", "", "Relocated Station", "Town9", ""));
+        index.onAdd(airport("C0001", "", "Lakeside", "Town3", ""));
+
+        // Assert
+        assertEquals(500, index.search("station", 0, 10).getTotalHits());
+        assertEquals(51, index.search("town3", 0, 10).getTotalHits());
+        assertEquals(List.of("B2999"), icaos(index.search("relocated", 0, 10)));
+        assertEquals(0, index.search("2999", 0, 10).getTotalHits());
+        assertThrows(IllegalArgumentException.class, () -> index.search("station", 0, 101));
+        assertThrows(IllegalArgumentException.class, () -> index.search("station", 10, 100));
+        assertThrows(IllegalArgumentException.class, () -> index.search("--", 0, 10));
+    }
+
+    @Test
+    void search_PageOutOfRange_ShouldRejectWithoutOverflow() {
+        // Arrange
+        FullTextIndex index = new FullTextIndex();
+        index.onReload(List.of(airport("KJFK", "JFK", "John F Kennedy International Airport", "New York", "New York")));
+
+        // Act & Assert
+        // (page + 1) * size wraps around to a negative window in int arithmetic
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> index.search("new york", Integer.MAX_VALUE, 10));
+        assertTrue(exception.getMessage().startsWith("Only the first"));
+        assertThrows(IllegalArgumentException.class, () -> index.search("new york", Integer.MAX_VALUE, 100));
+        assertThrows(IllegalArgumentException.class, () -> index.search("new york", -1, 10));
+        assertThrows(IllegalArgumentException.class, () -> index.search("new york", 0, 0));
+    }
+
+    private static List<String> icaos(SearchResults results) {
+        return results.getHits().stream().map(hit -> hit.getAirport().getIcao()).toList();
+    }
+
+    private static Airport airport(String icao, String iata, String name, String city, String state) {
+        Airport airport = new Airport();
+        airport.setIcao(icao);
+        airport.setIata(iata);
+        airport.setName(name);
+        airport.setCity(city);
+        airport.setState(state);
+        return airport;
+    }
+}
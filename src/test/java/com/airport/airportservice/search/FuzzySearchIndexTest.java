@@ -0,0 +1,173 @@
+package com.airport.airportservice.search;
+
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.FuzzyMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzySearchIndexTest {
+
+    @Test
+    void dictionarySearch_ShouldMatchBruteForce() {
+        // Arrange
+        Random random = new Random(7);
+        TreeSet<String> terms = new TreeSet<>();
+        while (terms.size() < 3000) {
+            terms.add(randomWord(random));
+        }
+        List<String> all = new ArrayList<>(terms);
+        TermDictionary dictionary = new TermDictionary();
+        dictionary.rebuild(all.subList(0, 2500));
+        // the rest stays in the pending list
+        all.subList(2500, all.size()).forEach(dictionary::add);
+
+        for (int i = 0; i < 200; i++) {
+            String query = i % 2 == 0 ? mutate(all.get(random.nextInt(all.size())), random) : randomWord(random);
+            for (int maxEdits = 0; maxEdits <= 2; maxEdits++) {
+                // Act
+                Map<String, Integer> matches = new HashMap<>();
+                dictionary.search(query, maxEdits, matches);
+
+                // Assert
+                Map<String, Integer> expected = new HashMap<>();
+                for (String term : all) {
+                    int edits = osaDistance(term, query);
+                    if (edits <= maxEdits) {
+                        expected.put(term, edits);
+                    }
+                }
+                assertEquals(expected, matches, "query " + query + " maxEdits " + maxEdits);
+            }
+        }
+    }
+
+    @Test
+    void search_ShouldRankByEditsThenNameMatches() {
+        // Arrange
+        FuzzySearchIndex index = new FuzzySearchIndex();
+        index.onReload(List.of(
+                airport("A001", "Frankfort Municipal", "Lexington"),
+                airport("A002", "Hahn Airport", "Frankfurt"),
+                airport("A003", "Frankfurt am Main Airport", "Frankfurt"),
+                airport("A004", "Zürich Airport", "Kloten")));
+
+        // Act
+        List<FuzzyMatch> frankfurt = index.search("frankfurt", 2, 10);
+        List<FuzzyMatch> frankfurtAirport = index.search("Frankfurt airprot", 2, 10);
+        List<FuzzyMatch> zurich = index.search("zurich", 2, 10);
+
+        // Assert
+        assertEquals(List.of("A003", "A002", "A001"), icaos(frankfurt));
+        assertEquals(0, frankfurt.get(0).getEdits());
+        assertEquals(1, frankfurt.get(2).getEdits());
+        assertEquals(List.of("FRANKFORT"), frankfurt.get(2).getTerms());
+        assertEquals(List.of("A003", "A002"), icaos(frankfurtAirport));
+        assertEquals(List.of("FRANKFURT", "AIRPORT"), frankfurtAirport.get(0).getTerms());
+        assertEquals(List.of("A004"), icaos(zurich));
+    }
+
+    @Test
+    void search_ShortWordsAndNumbers_ShouldMatchExactly() {
+        // Arrange
+        FuzzySearchIndex index = new FuzzySearchIndex();
+        index.onReload(List.of(airport("A001", "Field 123456", "Rome"), airport("A002", "Field 123457", "Roma")));
+
+        // Act + Assert
+        assertEquals(List.of("A001"), icaos(index.search("field 123456", 2, 10)));
+        assertEquals(List.of("A001", "A002"), icaos(index.search("rome", 2, 10)));
+        assertEquals(List.of("A002", "A001"), icaos(index.search("roma", 2, 10)));
+        assertThrows(IllegalArgumentException.class, () -> index.search("  ", 2, 10));
+        assertThrows(IllegalArgumentException.class, () -> index.search("rome", 3, 10));
+    }
+
+    @Test
+    void removals_ShouldCompactAndKeepResults() {
+        // Arrange
+        FuzzySearchIndex index = new FuzzySearchIndex();
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            airports.add(airport(String.format("B%04d", i), "Station " + randomWord(new Random(i)), "Town" + i % 10));
+        }
+        index.onReload(airports);
+
+        // Act
+        for (int i = 0; i < 4000; i++) {
+            index.onRemove(airports.get(i));
+        }
+        index.onAdd(airport("C0001", "Stashun Field", "Town3"));
+
+        // Assert
+        List<FuzzyMatch> result = index.search("town3", 2, 100);
+        assertEquals(100, result.size());
+        assertTrue(result.stream().allMatch(match -> match.getAirport().getIcao().compareTo("B4000") >= 0));
+        assertEquals(List.of("C0001"), icaos(index.search("stashun", 0, 10)));
+    }
+
+    private static List<String> icaos(List<FuzzyMatch> matches) {
+        return matches.stream().map(match -> match.getAirport().getIcao()).toList();
+    }
+
+    private static Airport airport(String icao, String name, String city) {
+        Airport airport = new Airport();
+        airport.setIcao(icao);
+        airport.setName(name);
+        airport.setCity(city);
+        return airport;
+    }
+
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        int length = 2 + random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            word.append("ABCDEFGHIJ".charAt(random.nextInt(10)));
+        }
+        return word.toString();
+    }
+
+    private static String mutate(String word, Random random) {
+        StringBuilder mutated = new StringBuilder(word);
+        for (int edits = random.nextInt(3); edits > 0 && mutated.length() > 1; edits--) {
+            int pos = random.nextInt(mutated.length() - 1);
+            switch (random.nextInt(4)) {
+                case 0 -> mutated.deleteCharAt(pos);
+                case 1 -> mutated.insert(pos, 'K');
+                case 2 -> mutated.setCharAt(pos, 'J');
+                default -> {
+                    char c = mutated.charAt(pos);
+                    mutated.setCharAt(pos, mutated.charAt(pos + 1));
+                    mutated.setCharAt(pos + 1, c);
+                }
+            }
+        }
+        return mutated.toString();
+    }
+
+    // Textbook optimal string alignment distance
+    private static int osaDistance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
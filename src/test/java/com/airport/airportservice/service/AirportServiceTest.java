@@ -1,16 +1,40 @@
 package com.airport.airportservice.service;
 
+import com.airport.airportservice.analytics.ElevationCube;
+import com.airport.airportservice.analytics.ElevationStatistics;
+import com.airport.airportservice.analytics.FrequencyCounters;
+import com.airport.airportservice.geo.DistanceMatrix;
+import com.airport.airportservice.geo.UnitVectors;
+import com.airport.airportservice.index.AirportIndex;
+import com.airport.airportservice.index.IcaoLocks;
 import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.model.DistanceMatrixRequest;
+import com.airport.airportservice.model.ElevationDistribution;
+import com.airport.airportservice.model.ElevationRollup;
+import com.airport.airportservice.model.FuzzyMatch;
+import com.airport.airportservice.model.SearchResults;
+import com.airport.airportservice.model.TopKResult;
 import com.airport.airportservice.repository.AirportRepository;
+import com.airport.airportservice.search.FullTextIndex;
+import com.airport.airportservice.search.FuzzySearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 
+import java.io.ByteArrayOutputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -22,13 +46,28 @@ class AirportServiceTest {
     @Mock
     private AirportRepository airportRepository;
 
-    @InjectMocks
     private AirportService airportService;
 
+    private FrequencyCounters frequencyCounters;
+
+    private SingleFlight singleFlight;
+
     private List<Airport> mockAirports;
 
     @BeforeEach
     void setUp() {
+        ElevationStatistics elevationStatistics = new ElevationStatistics();
+        ElevationCube elevationCube = new ElevationCube();
+        frequencyCounters = new FrequencyCounters(1000, 2);
+        UnitVectors unitVectors = new UnitVectors();
+        FuzzySearchIndex fuzzySearchIndex = new FuzzySearchIndex();
+        FullTextIndex fullTextIndex = new FullTextIndex();
+        AirportIndex airportIndex = new AirportIndex(airportRepository,
+                List.of(elevationStatistics, elevationCube, frequencyCounters, unitVectors, fuzzySearchIndex, fullTextIndex));
+        singleFlight = new SingleFlight(new SimpleMeterRegistry());
+        airportService = new AirportService(airportRepository, airportIndex, elevationStatistics, elevationCube,
+                frequencyCounters, unitVectors, fuzzySearchIndex, fullTextIndex, singleFlight, new IcaoLocks());
+
         // Initialize mock airport data
         mockAirports = new ArrayList<>();
         Airport airport1 = new Airport();
@@ -67,16 +106,60 @@ class AirportServiceTest {
         int page = 0;
         int size = 10;
         String sortBy = "name";
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortBy));
-        Page<Airport> mockPage = new PageImpl<>(mockAirports, pageable, mockAirports.size());
-
-        when(airportRepository.findAll(pageable)).thenReturn(mockPage);
+        when(airportRepository.findAll()).thenReturn(mockAirports);
 
         // Act
         Page<Airport> result = airportService.getAirportsPage(page, size, sortBy);
 
         // Assert
         assertEquals(2, result.getContent().size());
+        assertEquals(2, result.getTotalElements());
+        assertEquals("EGLL", result.getContent().get(0).getIcao());
+        assertEquals("KJFK", result.getContent().get(1).getIcao());
+        verify(airportRepository, times(1)).findAll();
+        verify(airportRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void getAirportsPage_SecondPage_ShouldWalkIndexFromOffset() {
+        // Arrange
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+
+        // Act
+        Page<Airport> result = airportService.getAirportsPage(1, 1, "city");
+
+        // Assert
+        assertEquals(1, result.getContent().size());
+        assertEquals("KJFK", result.getContent().get(0).getIcao()); // London < New York
+        assertEquals(2, result.getTotalPages());
+    }
+
+    @Test
+    void getAirportsPage_HugeSize_ShouldReturnWhatIsLeft() {
+        // Arrange
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+
+        // Act
+        Page<Airport> first = airportService.getAirportsPage(0, Integer.MAX_VALUE, "name");
+        Page<Airport> rest = airportService.getAirportsPage(1, 1_000_000_000, "name");
+
+        // Assert
+        assertEquals(2, first.getContent().size());
+        assertEquals(2, first.getTotalElements());
+        assertTrue(rest.getContent().isEmpty());
+    }
+
+    @Test
+    void getAirportsPage_WithNonIndexedSort_ShouldUseRepository() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("elevation"));
+        Page<Airport> mockPage = new PageImpl<>(mockAirports, pageable, mockAirports.size());
+        when(airportRepository.findAll(pageable)).thenReturn(mockPage);
+
+        // Act
+        Page<Airport> result = airportService.getAirportsPage(0, 10, "elevation");
+
+        // Assert
         assertEquals(mockAirports, result.getContent());
         verify(airportRepository, times(1)).findAll(pageable);
     }
@@ -99,15 +182,46 @@ class AirportServiceTest {
     void getAllAirports_WithValidSort_ShouldReturnSortedAirports() {
         // Arrange
         String sortBy = "name";
-        when(airportRepository.findAll(Sort.by(sortBy))).thenReturn(mockAirports);
+        when(airportRepository.findAll()).thenReturn(mockAirports);
 
         // Act
         List<Airport> result = airportService.getAllAirports(sortBy);
 
         // Assert
         assertEquals(2, result.size());
-        assertEquals(mockAirports, result);
-        verify(airportRepository, times(1)).findAll(Sort.by(sortBy));
+        assertEquals("EGLL", result.get(0).getIcao());
+        assertEquals("KJFK", result.get(1).getIcao());
+        verify(airportRepository, times(1)).findAll();
+        verify(airportRepository, never()).findAll(any(Sort.class));
+    }
+
+    @Test
+    void getAllAirports_AfterAddAndDelete_ShouldKeepSortOrder() {
+        // Arrange
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+        airportService.getAllAirports("name"); // loads the index
+
+        Airport newAirport = new Airport();
+        newAirport.setIcao("KLAX");
+        newAirport.setName("Los Angeles International");
+        newAirport.setCountry("US");
+        newAirport.setTz("America/Los_Angeles");
+        newAirport.setElevation(125);
+        newAirport.setLat(33.9425);
+        newAirport.setLon(-118.4081);
+        when(airportRepository.insertAirport(any(Airport.class))).thenReturn(1);
+        when(airportRepository.deleteByIcao("EGLL")).thenReturn(1);
+
+        // Act
+        airportService.addAirport(newAirport);
+        airportService.deleteAirport("EGLL");
+        List<Airport> result = airportService.getAllAirports("name");
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("KJFK", result.get(0).getIcao());
+        assertEquals("KLAX", result.get(1).getIcao());
+        verify(airportRepository, times(1)).findAll();
     }
 
     @Test
@@ -127,9 +241,8 @@ class AirportServiceTest {
     @Test
     void filterByName_ShouldReturnFilteredAirports() {
         // Arrange
-        String name = "Kennedy";
-        List<Airport> filteredList = mockAirports.subList(0, 1); // Only KJFK
-        when(airportRepository.findByNameContainingIgnoreCase(name)).thenReturn(filteredList);
+        String name = "kennedy";
+        when(airportRepository.findAll()).thenReturn(mockAirports);
 
         // Act
         List<Airport> result = airportService.filterByName(name);
@@ -137,15 +250,78 @@ class AirportServiceTest {
         // Assert
         assertEquals(1, result.size());
         assertEquals("KJFK", result.get(0).getIcao());
-        verify(airportRepository, times(1)).findByNameContainingIgnoreCase(name);
+        verify(airportRepository, never()).findByNameContainingIgnoreCase(anyString());
+    }
+
+    @Test
+    void fuzzySearch_Misspelled_ShouldFindAirport() {
+        // Arrange
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+
+        // Act
+        List<FuzzyMatch> result = airportService.fuzzySearch("heathro", 2, 10);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("EGLL", result.get(0).getAirport().getIcao());
+        assertEquals(1, result.get(0).getEdits());
+        assertEquals(List.of("HEATHROW"), result.get(0).getTerms());
+    }
+
+    @Test
+    void fuzzySearch_AfterAddAndDelete_ShouldFollowWrites() {
+        // Arrange
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+        when(airportRepository.insertAirport(any(Airport.class))).thenReturn(1);
+        when(airportRepository.deleteByIcao("EGLL")).thenReturn(1);
+        assertEquals(1, airportService.fuzzySearch("heathrow", 2, 10).size());
+        Airport frankfurt = new Airport();
+        frankfurt.setIcao("EDDF");
+        frankfurt.setName("Frankfurt am Main Airport");
+        frankfurt.setCity("Frankfurt");
+        frankfurt.setCountry("DE");
+        frankfurt.setElevation(364);
+        frankfurt.setLat(50.0333);
+        frankfurt.setLon(8.5706);
+        frankfurt.setTz("Europe/Berlin");
+
+        // Act
+        airportService.addAirport(frankfurt);
+        airportService.deleteAirport("EGLL");
+
+        // Assert
+        List<FuzzyMatch> result = airportService.fuzzySearch("Frankfort", 2, 10);
+        assertEquals(1, result.size());
+        assertEquals("EDDF", result.get(0).getAirport().getIcao());
+        assertTrue(airportService.fuzzySearch("heathrow", 2, 10).isEmpty());
+    }
+
+    @Test
+    void search_ByCityOrCode_ShouldRankAndFollowWrites() {
+        // Arrange
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+        when(airportRepository.deleteByIcao("KJFK")).thenReturn(1);
+        SearchResults byCity = airportService.search("new york", 0, 10);
+        SearchResults byCode = airportService.search("jfk", 0, 10);
+
+        // Act
+        airportService.deleteAirport("KJFK");
+
+        // Assert
+        assertEquals(1, byCity.getTotalHits());
+        assertEquals("KJFK", byCity.getHits().get(0).getAirport().getIcao());
+        assertEquals("KJFK", byCode.getHits().get(0).getAirport().getIcao());
+        SearchResults afterDelete = airportService.search("new york", 0, 10);
+        assertEquals(0, afterDelete.getTotalHits());
+        assertTrue(afterDelete.getHits().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> airportService.search("london", 100, 10));
     }
 
     @Test
     void getAirportById_WhenExists_ShouldReturnAirport() {
         // Arrange
         String icao = "KJFK";
-        Optional<Airport> mockAirport = Optional.of(mockAirports.get(0));
-        when(airportRepository.findById(icao)).thenReturn(mockAirport);
+        when(airportRepository.findAll()).thenReturn(mockAirports);
 
         // Act
         Optional<Airport> result = airportService.getAirportById(icao);
@@ -153,21 +329,21 @@ class AirportServiceTest {
         // Assert
         assertTrue(result.isPresent());
         assertEquals("KJFK", result.get().getIcao());
-        verify(airportRepository, times(1)).findById(icao);
+        verify(airportRepository, never()).findById(anyString());
     }
 
     @Test
     void getAirportById_WhenNotExists_ShouldReturnEmpty() {
         // Arrange
         String icao = "XXXX";
-        when(airportRepository.findById(icao)).thenReturn(Optional.empty());
+        when(airportRepository.findAll()).thenReturn(mockAirports);
 
         // Act
         Optional<Airport> result = airportService.getAirportById(icao);
 
         // Assert
         assertFalse(result.isPresent());
-        verify(airportRepository, times(1)).findById(icao);
+        verify(airportRepository, never()).findById(anyString());
     }
 
     @Test
@@ -185,8 +361,7 @@ class AirportServiceTest {
         newAirport.setLon(-118.4081);
         newAirport.setTz("America/Los_Angeles");
 
-        when(airportRepository.existsById("KLAX")).thenReturn(false);
-        when(airportRepository.save(any(Airport.class))).thenReturn(newAirport);
+        when(airportRepository.insertAirport(any(Airport.class))).thenReturn(1);
 
         // Act
         Airport result = airportService.addAirport(newAirport);
@@ -196,8 +371,7 @@ class AirportServiceTest {
         assertEquals("", result.getIata()); // Defaulted to ""
         assertEquals("", result.getCity()); // Defaulted to ""
         assertEquals("", result.getState()); // Defaulted to ""
-        verify(airportRepository, times(1)).existsById("KLAX");
-        verify(airportRepository, times(1)).save(newAirport);
+        verify(airportRepository, times(1)).insertAirport(newAirport);
     }
 
     @Test
@@ -215,8 +389,7 @@ class AirportServiceTest {
         newAirport.setLon(-122.0); // Integer input
         newAirport.setTz("America/Los_Angeles");
 
-        when(airportRepository.existsById("KSEA")).thenReturn(false);
-        when(airportRepository.save(any(Airport.class))).thenReturn(newAirport);
+        when(airportRepository.insertAirport(any(Airport.class))).thenReturn(1);
 
         // Act
         Airport result = airportService.addAirport(newAirport);
@@ -225,8 +398,7 @@ class AirportServiceTest {
         assertEquals("KSEA", result.getIcao());
         assertEquals(47.0, result.getLat());
         assertEquals(-122.0, result.getLon());
-        verify(airportRepository, times(1)).existsById("KSEA");
-        verify(airportRepository, times(1)).save(newAirport);
+        verify(airportRepository, times(1)).insertAirport(newAirport);
     }
 
     @Test
@@ -247,8 +419,7 @@ class AirportServiceTest {
                 () -> airportService.addAirport(airport)
         );
         assertEquals("ICAO code is a mandatory field, which should not contain special or lowercase characters and must be exactly 4 characters.", exception.getMessage());
-        verify(airportRepository, never()).existsById(anyString());
-        verify(airportRepository, never()).save(any(Airport.class));
+        verify(airportRepository, never()).insertAirport(any(Airport.class));
     }
 
     @Test
@@ -269,8 +440,7 @@ class AirportServiceTest {
                 () -> airportService.addAirport(airport)
         );
         assertEquals("ICAO code is a mandatory field, which should not contain special or lowercase characters and must be exactly 4 characters.", exception.getMessage());
-        verify(airportRepository, never()).existsById(anyString());
-        verify(airportRepository, never()).save(any(Airport.class));
+        verify(airportRepository, never()).insertAirport(any(Airport.class));
     }
 
     @Test
@@ -284,6 +454,8 @@ class AirportServiceTest {
         airport.setElevation(125);
         airport.setLat(33.9425);
         airport.setLon(-118.4081);
+        when(airportRepository.insertAirport(any(Airport.class)))
+                .thenThrow(new DataIntegrityViolationException("PRIMARY KEY ON PUBLIC.AIRPORT(ICAO)"));
         when(airportRepository.existsById("KJFK")).thenReturn(true);
 
         // Act & Assert
@@ -292,10 +464,52 @@ class AirportServiceTest {
                 () -> airportService.addAirport(airport)
         );
         assertEquals("Airport with ICAO code 'KJFK' already exists.", exception.getMessage());
-        verify(airportRepository, times(1)).existsById("KJFK");
+        verify(airportRepository, times(1)).insertAirport(any(Airport.class));
         verify(airportRepository, never()).save(any(Airport.class));
     }
 
+    @Test
+    void addAirport_OtherConstraintViolation_ShouldNotReportADuplicate() {
+        // Arrange
+        Airport airport = new Airport();
+        airport.setIcao("KJFK");
+        airport.setName("Test Airport");
+        airport.setCountry("US");
+        airport.setTz("America/New_York");
+        airport.setElevation(13);
+        airport.setLat(40.6398);
+        airport.setLon(-73.7789);
+        when(airportRepository.insertAirport(any(Airport.class)))
+                .thenThrow(new DataIntegrityViolationException("Value too long for column IATA"));
+        when(airportRepository.existsById("KJFK")).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> airportService.addAirport(airport));
+        assertTrue(airportService.getAirportById("KJFK").isEmpty());
+    }
+
+    @Test
+    void addAirport_ExistingIcao_NoRowInserted_ShouldThrowException() {
+        // Arrange
+        Airport airport = new Airport();
+        airport.setIcao("KJFK");
+        airport.setName("Test Airport");
+        airport.setCountry("US");
+        airport.setTz("America/New_York");
+        airport.setElevation(13);
+        airport.setLat(40.6398);
+        airport.setLon(-73.7789);
+        when(airportRepository.insertAirport(any(Airport.class))).thenReturn(0);
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> airportService.addAirport(airport)
+        );
+        assertEquals("Airport with ICAO code 'KJFK' already exists.", exception.getMessage());
+        verify(airportRepository, never()).existsById(anyString());
+    }
+
     @Test
     void addAirport_MissingName_ShouldThrowException() {
         // Arrange
@@ -307,7 +521,6 @@ class AirportServiceTest {
         airport.setElevation(125);
         airport.setLat(33.9425);
         airport.setLon(-118.4081);
-        when(airportRepository.existsById("KLAX")).thenReturn(false);
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -315,8 +528,7 @@ class AirportServiceTest {
                 () -> airportService.addAirport(airport)
         );
         assertEquals("Name is a mandatory field and cannot be empty.", exception.getMessage());
-        verify(airportRepository, times(1)).existsById("KLAX");
-        verify(airportRepository, never()).save(any(Airport.class));
+        verify(airportRepository, never()).insertAirport(any(Airport.class));
     }
 
     @Test
@@ -330,7 +542,6 @@ class AirportServiceTest {
         airport.setElevation(125);
         airport.setLat(33.9425);
         airport.setLon(-118.4081);
-        when(airportRepository.existsById("KLAX")).thenReturn(false);
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -338,8 +549,7 @@ class AirportServiceTest {
                 () -> airportService.addAirport(airport)
         );
         assertEquals("Name is a mandatory field and cannot be empty.", exception.getMessage());
-        verify(airportRepository, times(1)).existsById("KLAX");
-        verify(airportRepository, never()).save(any(Airport.class));
+        verify(airportRepository, never()).insertAirport(any(Airport.class));
     }
 
     @Test
@@ -353,7 +563,6 @@ class AirportServiceTest {
         airport.setElevation(125);
         airport.setLat(33.9425);
         airport.setLon(-118.4081);
-        when(airportRepository.existsById("KLAX")).thenReturn(false);
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -361,8 +570,7 @@ class AirportServiceTest {
                 () -> airportService.addAirport(airport)
         );
         assertEquals("Country code is a mandatory field and must be two uppercase letters.", exception.getMessage());
-        verify(airportRepository, times(1)).existsById("KLAX");
-        verify(airportRepository, never()).save(any(Airport.class));
+        verify(airportRepository, never()).insertAirport(any(Airport.class));
     }
 
     @Test
@@ -376,7 +584,6 @@ class AirportServiceTest {
         airport.setElevation(125);
         airport.setLat(33.9425);
         airport.setLon(-118.4081);
-        when(airportRepository.existsById("KLAX")).thenReturn(false);
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -384,8 +591,7 @@ class AirportServiceTest {
                 () -> airportService.addAirport(airport)
         );
         assertEquals("Country code is a mandatory field and must be two uppercase letters.", exception.getMessage());
-        verify(airportRepository, times(1)).existsById("KLAX");
-        verify(airportRepository, never()).save(any(Airport.class));
+        verify(airportRepository, never()).insertAirport(any(Airport.class));
     }
 
     @Test
@@ -399,7 +605,6 @@ class AirportServiceTest {
         airport.setElevation(125);
         airport.setLat(33.9425);
         airport.setLon(-118.4081);
-        when(airportRepository.existsById("KLAX")).thenReturn(false);
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -407,8 +612,7 @@ class AirportServiceTest {
                 () -> airportService.addAirport(airport)
         );
         assertEquals("Timezone is a mandatory field and cannot be empty.", exception.getMessage());
-        verify(airportRepository, times(1)).existsById("KLAX");
-        verify(airportRepository, never()).save(any(Airport.class));
+        verify(airportRepository, never()).insertAirport(any(Airport.class));
     }
 
     @Test
@@ -422,7 +626,6 @@ class AirportServiceTest {
         airport.setElevation(125);
         airport.setLat(33.9425);
         airport.setLon(-118.4081);
-        when(airportRepository.existsById("KLAX")).thenReturn(false);
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -430,8 +633,7 @@ class AirportServiceTest {
                 () -> airportService.addAirport(airport)
         );
         assertEquals("Timezone is a mandatory field and cannot be empty.", exception.getMessage());
-        verify(airportRepository, times(1)).existsById("KLAX");
-        verify(airportRepository, never()).save(any(Airport.class));
+        verify(airportRepository, never()).insertAirport(any(Airport.class));
     }
 
     @Test
@@ -445,7 +647,6 @@ class AirportServiceTest {
         airport.setElevation(null);
         airport.setLat(33.9425);
         airport.setLon(-118.4081);
-        when(airportRepository.existsById("KLAX")).thenReturn(false);
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -453,8 +654,7 @@ class AirportServiceTest {
                 () -> airportService.addAirport(airport)
         );
         assertEquals("Elevation is a mandatory field and must be an integer.", exception.getMessage());
-        verify(airportRepository, times(1)).existsById("KLAX");
-        verify(airportRepository, never()).save(any(Airport.class));
+        verify(airportRepository, never()).insertAirport(any(Airport.class));
     }
 
     @Test
@@ -468,7 +668,6 @@ class AirportServiceTest {
         airport.setElevation(125);
         airport.setLat(null);
         airport.setLon(-118.4081);
-        when(airportRepository.existsById("KLAX")).thenReturn(false);
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -476,8 +675,7 @@ class AirportServiceTest {
                 () -> airportService.addAirport(airport)
         );
         assertEquals("Latitude is a mandatory field and must be in the range [-90, +90] degrees.", exception.getMessage());
-        verify(airportRepository, times(1)).existsById("KLAX");
-        verify(airportRepository, never()).save(any(Airport.class));
+        verify(airportRepository, never()).insertAirport(any(Airport.class));
     }
 
     @Test
@@ -491,7 +689,6 @@ class AirportServiceTest {
         airport.setElevation(125);
         airport.setLat(91.0);
         airport.setLon(-118.4081);
-        when(airportRepository.existsById("KLAX")).thenReturn(false);
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -499,8 +696,7 @@ class AirportServiceTest {
                 () -> airportService.addAirport(airport)
         );
         assertEquals("Latitude is a mandatory field and must be in the range [-90, +90] degrees.", exception.getMessage());
-        verify(airportRepository, times(1)).existsById("KLAX");
-        verify(airportRepository, never()).save(any(Airport.class));
+        verify(airportRepository, never()).insertAirport(any(Airport.class));
     }
 
     @Test
@@ -514,7 +710,6 @@ class AirportServiceTest {
         airport.setElevation(125);
         airport.setLat(33.9425);
         airport.setLon(null);
-        when(airportRepository.existsById("KLAX")).thenReturn(false);
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -522,8 +717,7 @@ class AirportServiceTest {
                 () -> airportService.addAirport(airport)
         );
         assertEquals("Longitude is a mandatory field and must be in the range [-180, +180] degrees.", exception.getMessage());
-        verify(airportRepository, times(1)).existsById("KLAX");
-        verify(airportRepository, never()).save(any(Airport.class));
+        verify(airportRepository, never()).insertAirport(any(Airport.class));
     }
 
     @Test
@@ -537,7 +731,6 @@ class AirportServiceTest {
         airport.setElevation(125);
         airport.setLat(33.9425);
         airport.setLon(181.0);
-        when(airportRepository.existsById("KLAX")).thenReturn(false);
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -545,8 +738,7 @@ class AirportServiceTest {
                 () -> airportService.addAirport(airport)
         );
         assertEquals("Longitude is a mandatory field and must be in the range [-180, +180] degrees.", exception.getMessage());
-        verify(airportRepository, times(1)).existsById("KLAX");
-        verify(airportRepository, never()).save(any(Airport.class));
+        verify(airportRepository, never()).insertAirport(any(Airport.class));
     }
 
     @Test
@@ -574,8 +766,7 @@ class AirportServiceTest {
         savedAirport.setCity("");
         savedAirport.setState("");
 
-        when(airportRepository.existsById("KLAX")).thenReturn(false);
-        when(airportRepository.save(any(Airport.class))).thenReturn(savedAirport);
+        when(airportRepository.insertAirport(any(Airport.class))).thenReturn(1);
 
         // Act
         Airport result = airportService.addAirport(newAirport);
@@ -585,29 +776,27 @@ class AirportServiceTest {
         assertEquals("", result.getIata());
         assertEquals("", result.getCity());
         assertEquals("", result.getState());
-        verify(airportRepository, times(1)).existsById("KLAX");
-        verify(airportRepository, times(1)).save(any(Airport.class));
+        verify(airportRepository, times(1)).insertAirport(any(Airport.class));
     }
 
     @Test
     void deleteAirport_WhenExists_ShouldDelete() {
         // Arrange
         String icao = "KJFK";
-        when(airportRepository.existsById(icao)).thenReturn(true);
+        when(airportRepository.deleteByIcao(icao)).thenReturn(1);
 
         // Act
         airportService.deleteAirport(icao);
 
         // Assert
-        verify(airportRepository, times(1)).existsById(icao);
-        verify(airportRepository, times(1)).deleteById(icao);
+        verify(airportRepository, times(1)).deleteByIcao(icao);
     }
 
     @Test
     void deleteAirport_WhenNotExists_ShouldThrowException() {
         // Arrange
         String icao = "XXXX";
-        when(airportRepository.existsById(icao)).thenReturn(false);
+        when(airportRepository.deleteByIcao(icao)).thenReturn(0);
 
         // Act & Assert
         IllegalArgumentException exception = assertThrows(
@@ -615,7 +804,7 @@ class AirportServiceTest {
                 () -> airportService.deleteAirport(icao)
         );
         assertEquals("No Data found associated with given ICAO: XXXX", exception.getMessage());
-        verify(airportRepository, times(1)).existsById(icao);
+        verify(airportRepository, times(1)).deleteByIcao(icao);
         verify(airportRepository, never()).deleteById(icao);
     }
 
@@ -657,6 +846,35 @@ class AirportServiceTest {
         verify(airportRepository, times(1)).findAll();
     }
 
+    @Test
+    void getAverageElevationPerCountry_AfterWrites_ShouldFollowSnapshot() {
+        // Arrange
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+        when(airportRepository.insertAirport(any(Airport.class))).thenReturn(1);
+        when(airportRepository.deleteByIcao("EGLL")).thenReturn(1);
+        List<Airport> before = airportService.getAllAirports(null);
+
+        Airport lax = new Airport();
+        lax.setIcao("KLAX");
+        lax.setName("Los Angeles International");
+        lax.setCountry("US");
+        lax.setTz("America/Los_Angeles");
+        lax.setElevation(125);
+        lax.setLat(33.9425);
+        lax.setLon(-118.4081);
+
+        // Act
+        airportService.addAirport(lax);
+        airportService.deleteAirport("EGLL");
+        Map<String, Double> result = airportService.getAverageElevationPerCountry();
+
+        // Assert
+        assertEquals(Map.of("US", 69.0), result);
+        assertEquals(2, before.size()); // a reader keeps the snapshot it started with
+        assertEquals(Optional.of(lax), airportService.getAirportById("KLAX"));
+        verify(airportRepository, times(1)).findAll();
+    }
+
     @Test
     void getAirportsWithoutIataCode_ShouldReturnAirportsWithoutIata() {
         // Arrange
@@ -670,4 +888,311 @@ class AirportServiceTest {
         assertEquals("EGLL", result.get(0).getIcao());
         verify(airportRepository, times(1)).findAll();
     }
-}
\ No newline at end of file
+
+    @Test
+    void getElevationDistribution_ShouldReturnQuantilesPerCountry() {
+        // Arrange
+        for (int i = 0; i < 99; i++) {
+            Airport strip = new Airport();
+            strip.setIcao(String.format("X%03d", i));
+            strip.setCountry("NP");
+            strip.setTz("Asia/Kathmandu");
+            strip.setElevation(i < 90 ? 100 : 9000); // a few high-altitude strips
+            mockAirports.add(strip);
+        }
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+
+        // Act
+        Map<String, ElevationDistribution> result = airportService.getElevationDistribution("country", List.of(0.5, 0.99), 2);
+
+        // Assert
+        assertEquals(Set.of("US", "GB", "NP"), result.keySet());
+        ElevationDistribution nepal = result.get("NP");
+        assertEquals(99, nepal.getCount());
+        assertEquals(100.0, nepal.getQuantiles().get("p50"));
+        assertEquals(9000.0, nepal.getQuantiles().get("p99"), 1.0);
+        assertEquals(90, nepal.getHistogram().get(0).getCount());
+        assertEquals(9, nepal.getHistogram().get(1).getCount());
+        verify(airportRepository, times(1)).findAll();
+    }
+
+    @Test
+    void getElevationRollup_ShouldGroupDrillDownAndFollowDeletes() {
+        // Arrange
+        Airport albany = new Airport();
+        albany.setIcao("KALB");
+        albany.setState("NY");
+        albany.setCountry("US");
+        albany.setElevation(285);
+        albany.setTz("America/New_York");
+        mockAirports.add(albany);
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+        when(airportRepository.deleteByIcao("KALB")).thenReturn(1);
+        ElevationRollup byCountry = airportService.getElevationRollup(List.of("country"), Map.of());
+        ElevationRollup newYork = airportService.getElevationRollup(List.of("state", "tz"), Map.of("country", "US"));
+
+        // Act
+        airportService.deleteAirport("KALB");
+        ElevationRollup afterDelete = airportService.getElevationRollup(List.of(), Map.of("country", "US"));
+
+        // Assert
+        assertEquals(3, byCountry.getCount());
+        assertEquals(List.of("GB", "US"), byCountry.getRows().stream().map(r -> r.getGroup().get("country")).toList());
+        ElevationRollup.Row us = byCountry.getRows().get(1);
+        assertEquals(2, us.getCount());
+        assertEquals(13, us.getMinElevation());
+        assertEquals(285, us.getMaxElevation());
+        assertEquals(149.0, us.getAverageElevation());
+        assertEquals(1, newYork.getRows().size());
+        assertEquals(Map.of("state", "US-NY", "tz", "America/New_York"), newYork.getRows().get(0).getGroup());
+        assertEquals(1, afterDelete.getCount());
+        assertEquals(13, afterDelete.getRows().get(0).getMaxElevation());
+        assertThrows(IllegalArgumentException.class, () -> airportService.getElevationRollup(List.of("city"), Map.of()));
+        verify(airportRepository, times(1)).findAll();
+    }
+
+    @Test
+    void getElevationDistribution_AfterDelete_ShouldDropRemovedAirport() {
+        // Arrange
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+        when(airportRepository.deleteByIcao("KJFK")).thenReturn(1);
+        airportService.getElevationDistribution("tz", List.of(0.5), 1);
+
+        // Act
+        airportService.deleteAirport("KJFK");
+        Map<String, ElevationDistribution> result = airportService.getElevationDistribution("tz", List.of(0.5), 1);
+
+        // Assert
+        assertEquals(Set.of("Europe/London"), result.keySet());
+        assertEquals(83.0, result.get("Europe/London").getQuantiles().get("p50"));
+    }
+
+    @Test
+    void getElevationDistribution_InvalidGroup_ShouldThrowException() {
+        // Arrange
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> airportService.getElevationDistribution("city", List.of(0.5), 10)
+        );
+        assertEquals("Grouping by 'city' is not allowed. Allowed fields: country, tz.", exception.getMessage());
+    }
+
+    @Test
+    void getTop10TimeZones_ShouldReturnMostCommonFirst() {
+        // Arrange
+        Airport airport3 = new Airport();
+        airport3.setIcao("KLGA");
+        airport3.setCountry("US");
+        airport3.setTz("America/New_York");
+        mockAirports.add(airport3);
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+
+        // Act
+        List<Map.Entry<String, Long>> result = airportService.getTop10TimeZones();
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(Map.entry("America/New_York", 2L), result.get(0));
+        assertEquals(Map.entry("Europe/London", 1L), result.get(1));
+    }
+
+    @Test
+    void getTopValues_ExactMode_ShouldFollowWrites() {
+        // Arrange
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+        when(airportRepository.deleteByIcao("EGLL")).thenReturn(1);
+        airportService.getTopValues("country", 1);
+
+        // Act
+        airportService.deleteAirport("EGLL");
+        TopKResult result = airportService.getTopValues("country", 5);
+
+        // Assert
+        assertEquals("exact", result.getMode());
+        assertEquals(1, result.getTotal());
+        assertEquals(0, result.getErrorBound());
+        assertEquals(1, result.getEntries().size());
+        assertEquals("US", result.getEntries().get(0).getValue());
+    }
+
+    @Test
+    void getTopValues_SketchMode_ShouldReportErrorBounds() {
+        // Arrange
+        frequencyCounters = new FrequencyCounters(1, 2);
+        AirportIndex airportIndex = new AirportIndex(airportRepository, List.of(frequencyCounters));
+        airportService = new AirportService(airportRepository, airportIndex, new ElevationStatistics(),
+                new ElevationCube(), frequencyCounters, new UnitVectors(), new FuzzySearchIndex(), new FullTextIndex(),
+                singleFlight, new IcaoLocks());
+        for (int i = 0; i < 6; i++) {
+            Airport airport = new Airport();
+            airport.setIcao(String.format("X%03d", i));
+            airport.setCountry(i < 4 ? "US" : "C" + i);
+            mockAirports.add(airport);
+        }
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+
+        // Act
+        TopKResult result = airportService.getTopValues("country", 1);
+
+        // Assert
+        assertEquals("sketch", result.getMode());
+        assertEquals(8, result.getTotal());
+        assertEquals(4, result.getErrorBound());
+        assertEquals("US", result.getEntries().get(0).getValue());
+        assertEquals(5, result.getEntries().get(0).getCount());
+        assertTrue(result.getEntries().get(0).isGuaranteed());
+    }
+
+    @Test
+    void getTopValues_InvalidField_ShouldThrowException() {
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> airportService.getTopValues("name", 10)
+        );
+        assertEquals("Top-K by 'name' is not allowed. Allowed fields: tz, country, state, city.", exception.getMessage());
+    }
+
+    @Test
+    void filterByName_ConcurrentIdenticalCalls_ShouldShareOneQuery() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        when(airportRepository.findAll()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return mockAirports;
+        });
+
+        // Act
+        CompletableFuture<List<Airport>> leader = CompletableFuture.supplyAsync(() -> airportService.filterByName("Kennedy"));
+        verify(airportRepository, timeout(5000)).findAll();
+        CompletableFuture<List<Airport>> waiter = CompletableFuture.supplyAsync(() -> airportService.filterByName("Kennedy"));
+        while (singleFlight.coalescedCount("filterByName") == 0 && !waiter.isDone()) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // Assert
+        assertSame(leader.get(5, TimeUnit.SECONDS), waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, singleFlight.coalescedCount("filterByName"));
+        verify(airportRepository, times(1)).findAll();
+    }
+
+    @Test
+    void getAllAirports_ConcurrentCallsAndAWrite_ShouldOnlyShareWithinOneVersion() throws Exception {
+        // Arrange
+        int callers = 8;
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+        when(airportRepository.deleteByIcao("EGLL")).thenReturn(1);
+        CountDownLatch computed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(meterRegistry) {
+            // the first computation stays in flight with its result until release
+            @Override
+            public <T> T execute(String operation, Supplier<T> computation, Object... keyParts) {
+                return super.execute(operation, () -> {
+                    T result = computation.get();
+                    if (computed.getCount() > 0) {
+                        computed.countDown();
+                        awaitQuietly(release);
+                    }
+                    return result;
+                }, keyParts);
+            }
+        };
+        AirportIndex airportIndex = new AirportIndex(airportRepository, List.of());
+        // loaded up front like at startup, the first load moves the version the callers key on
+        airportIndex.ensureLoaded();
+        airportService = new AirportService(airportRepository, airportIndex, new ElevationStatistics(),
+                new ElevationCube(), frequencyCounters, new UnitVectors(), new FuzzySearchIndex(), new FullTextIndex(),
+                singleFlight, new IcaoLocks());
+        ExecutorService executor = Executors.newFixedThreadPool(callers + 1);
+
+        try {
+            // Act
+            List<Future<List<Airport>>> beforeWrite = new ArrayList<>();
+            beforeWrite.add(executor.submit(() -> airportService.getAllAirports("name")));
+            assertTrue(computed.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) {
+                beforeWrite.add(executor.submit(() -> airportService.getAllAirports("name")));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (singleFlight.coalescedCount("getAllAirports") < callers - 1) {
+                assertTrue(System.nanoTime() < deadline, "callers did not join the computation in flight");
+                Thread.onSpinWait();
+            }
+            airportService.deleteAirport("EGLL");
+            // would time out if it waited for the computation of the version before the delete
+            List<Airport> afterWrite = executor.submit(() -> airportService.getAllAirports("name"))
+                    .get(5, TimeUnit.SECONDS);
+            release.countDown();
+
+            // Assert
+            List<Airport> shared = beforeWrite.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<List<Airport>> caller : beforeWrite) {
+                assertSame(shared, caller.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(2, shared.size());
+            assertEquals(List.of("KJFK"), afterWrite.stream().map(Airport::getIcao).toList());
+            assertEquals(callers - 1, singleFlight.coalescedCount("getAllAirports"));
+            assertEquals(2, meterRegistry.counter("airport.singleflight.executions", "operation", "getAllAirports")
+                    .count());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void getDistanceMatrix_ShouldComputeGreatCircleDistances() throws Exception {
+        // Arrange
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+
+        // Act
+        DistanceMatrix matrix = airportService.getDistanceMatrix(
+                new DistanceMatrixRequest(List.of("KJFK", "EGLL"), List.of("EGLL", "KJFK")));
+        float[] row = new float[2];
+        matrix.computeRow(0, row);
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        matrix.writeJson(json);
+
+        // Assert
+        assertEquals(5540, row[0], 2);
+        assertEquals(0, row[1], 0.01);
+        assertTrue(json.toString().startsWith("{\"unit\":\"km\",\"from\":[\"KJFK\",\"EGLL\"],\"to\":[\"EGLL\",\"KJFK\"],\"distances\":[[5"));
+        assertTrue(json.toString().contains(",0.0]"));
+    }
+
+    @Test
+    void getDistanceMatrix_UnknownIcao_ShouldThrowException() {
+        // Arrange
+        when(airportRepository.findAll()).thenReturn(mockAirports);
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> airportService.getDistanceMatrix(new DistanceMatrixRequest(List.of("KJFK", "ZZZZ"), null)));
+        assertEquals("Unknown ICAO codes: ZZZZ.", exception.getMessage());
+    }
+
+    @Test
+    void getDistanceMatrix_TooManyCells_ShouldThrowException() {
+        // Arrange
+        List<String> codes = Collections.nCopies(2001, "KJFK");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> airportService.getDistanceMatrix(new DistanceMatrixRequest(codes, null)));
+        verify(airportRepository, never()).findAll();
+    }
+}
@@ -0,0 +1,214 @@
+package com.airport.airportservice.service;
+
+import com.airport.airportservice.index.AirportIndex;
+import com.airport.airportservice.model.Airport;
+import com.airport.airportservice.repository.AirportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Stress test for the single-statement write path against the real H2 table and index
+@SpringBootTest
+class AirportWriteConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final Path OUTPUT = Path.of("target/load-test");
+
+    @Autowired
+    private AirportService airportService;
+
+    @Autowired
+    private AirportRepository airportRepository;
+
+    @Autowired
+    private AirportIndex airportIndex;
+
+    @BeforeEach
+    void setUp() {
+        airportRepository.deleteAll();
+        airportIndex.reload();
+    }
+
+    @Test
+    void concurrentInsertsOfSameIcao_ShouldLetExactlyOneWin() throws Exception {
+        // Arrange
+        List<String> codes = codes(0, 300);
+        AtomicInteger inserted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // Act
+        runConcurrently(THREADS, thread -> {
+            List<String> order = new ArrayList<>(codes);
+            Collections.shuffle(order, new Random(thread));
+            for (String icao : order) {
+                try {
+                    airportService.addAirport(airport(icao));
+                    inserted.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    assertEquals("Airport with ICAO code '" + icao + "' already exists.", e.getMessage());
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        // Assert
+        assertEquals(codes.size(), inserted.get());
+        assertEquals(codes.size() * (THREADS - 1), rejected.get());
+        assertEquals(codes.size(), airportRepository.count());
+        assertEquals(codes.size(), airportIndex.all().size());
+    }
+
+    @Test
+    void concurrentInsertAndDeleteChurn_ShouldLeaveIndexEqualToTable() throws Exception {
+        // Arrange
+        List<String> codes = codes(0, 40);
+
+        // Act
+        runConcurrently(THREADS, thread -> {
+            Random random = new Random(thread);
+            for (int i = 0; i < 500; i++) {
+                String icao = codes.get(random.nextInt(codes.size()));
+                try {
+                    if (random.nextBoolean()) {
+                        airportService.addAirport(airport(icao));
+                    } else {
+                        airportService.deleteAirport(icao);
+                    }
+                } catch (IllegalArgumentException e) {
+                    // lost the race for this code, which is the expected outcome for most attempts
+                }
+            }
+        });
+
+        // Assert
+        Set<String> inTable = airportRepository.findAll().stream().map(Airport::getIcao).collect(Collectors.toSet());
+        Set<String> inIndex = airportIndex.all().stream().map(Airport::getIcao).collect(Collectors.toSet());
+        assertEquals(inTable, inIndex);
+        assertEquals(inTable.size(), airportIndex.all().size());
+    }
+
+    // Distinct codes per thread, so every insert succeeds whatever the number of threads. Only the row counts are
+    // checked here, how the rate scales with threads is measured by distinctInserts_ThroughputByThreadCount.
+    @Test
+    void distinctInserts_AtEveryThreadCount_ShouldAllLand() throws Exception {
+        int perThread = 500;
+        int offset = 0;
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            // Arrange
+            int base = offset;
+
+            // Act
+            runConcurrently(threads, thread -> {
+                for (String icao : codes(base + thread * perThread, perThread)) {
+                    airportService.addAirport(airport(icao));
+                }
+            });
+
+            // Assert
+            offset += threads * perThread;
+            assertEquals(offset, airportRepository.count());
+            assertEquals(offset, airportIndex.all().size());
+        }
+    }
+
+    // Inserts per second at 1, 2, 4 and 8 threads, printed and written to target/load-test/write-scaling.txt.
+    // Only the insert statement runs without a global lock, publishing to the index is still serialized on its
+    // publish lock and copies the snapshot arrays, so the rate flattens out once that dominates.
+    //   mvn -Pload-test test -Dtest=AirportWriteConcurrencyTest
+    @Test
+    @Tag("load-test")
+    void distinctInserts_ThroughputByThreadCount() throws Exception {
+        int perThread = 2_000;
+        // warm-up, so the first round does not pay for class loading and JIT compilation
+        int offset = 1_000;
+        for (String icao : codes(0, offset)) {
+            airportService.addAirport(airport(icao));
+        }
+        List<String> lines = new ArrayList<>();
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            // Arrange
+            int base = offset;
+            long start = System.nanoTime();
+
+            // Act
+            runConcurrently(threads, thread -> {
+                for (String icao : codes(base + thread * perThread, perThread)) {
+                    airportService.addAirport(airport(icao));
+                }
+            });
+
+            // Assert
+            double seconds = (System.nanoTime() - start) / 1e9;
+            offset += threads * perThread;
+            assertEquals(offset, airportRepository.count());
+            lines.add(String.format(Locale.ROOT, "%d thread(s): %.0f inserts/s", threads, threads * perThread / seconds));
+        }
+        lines.forEach(System.out::println);
+        Files.createDirectories(OUTPUT);
+        Files.write(OUTPUT.resolve("write-scaling.txt"), lines);
+    }
+
+    private static void runConcurrently(int threads, ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                tasks.add(() -> {
+                    body.run(thread);
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    // Four character codes W000, W001, ... in base 36
+    private static List<String> codes(int from, int count) {
+        List<String> codes = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            String suffix = Integer.toString(i, 36).toUpperCase(Locale.ROOT);
+            codes.add("W" + "000".substring(suffix.length()) + suffix);
+        }
+        return codes;
+    }
+
+    private static Airport airport(String icao) {
+        Airport airport = new Airport();
+        airport.setIcao(icao);
+        airport.setName("Stress " + icao);
+        airport.setCountry("US");
+        airport.setTz("America/New_York");
+        airport.setElevation(10);
+        airport.setLat(40.0);
+        airport.setLon(-74.0);
+        return airport;
+    }
+}